@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a command generating a diff and copies its output to a stream as it is produced. The error output is read on
+ * a pooled thread, so that neither of the pipes can fill up and block the command. A command running longer than
+ * its timeout is killed.
+ */
+final class DiffProcess {
+    private static final Logger LOG = Logger.getInstance(DiffProcess.class);
+
+    private DiffProcess() {
+    }
+
+    static void run(List<String> command, File directory, OutputStream out) throws VcsException {
+        run(command, directory, out, 0);
+    }
+
+    /**
+     * @param timeout in milliseconds, 0 for none
+     */
+    static void run(List<String> command, File directory, OutputStream out, long timeout) throws VcsException {
+        LOG.info("Running command : " + command.get(0) + " " + command.get(1));
+        Process process;
+        try {
+            process = new ProcessBuilder(command).directory(directory).start();
+        } catch (IOException e) {
+            throw new VcsException(e);
+        }
+        final InputStream errorStream = process.getErrorStream();
+        Future<String> error = ApplicationManager.getApplication().executeOnPooledThread(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return CharStreams.toString(new InputStreamReader(errorStream));
+            }
+        });
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = null;
+        if (timeout > 0) {
+            final Process running = process;
+            watchdog = AppExecutorUtil.getAppScheduledExecutorService().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    timedOut.set(true);
+                    running.destroyForcibly();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+        try (InputStream inputStream = process.getInputStream()) {
+            ByteStreams.copy(inputStream, out);
+            int exitCode = process.waitFor();
+            if (timedOut.get()) {
+                throw timeoutException(timeout);
+            }
+            if (exitCode != 0) {
+                throw new VcsException("Command failed with exit code " + exitCode + " : " + error.get().trim());
+            }
+        } catch (IOException | ExecutionException e) {
+            if (timedOut.get()) {
+                throw timeoutException(timeout);
+            }
+            throw new VcsException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VcsException(e);
+        } finally {
+            if (watchdog != null) watchdog.cancel(false);
+            process.destroy();
+        }
+    }
+
+    private static VcsException timeoutException(long timeout) {
+        return new VcsException("Command timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeout) + " seconds");
+    }
+}
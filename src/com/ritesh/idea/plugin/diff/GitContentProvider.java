@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vfs.VirtualFile;
+import git4idea.commands.GitCommand;
+import git4idea.commands.GitSimpleHandler;
+
+import java.util.regex.Pattern;
+
+/**
+ * Resolves blob revisions (as sent by review board for git repositories) from the local object store.
+ */
+public class GitContentProvider implements IVcsContentProvider {
+    private static final Logger LOG = Logger.getInstance(GitContentProvider.class);
+    private static final Pattern BLOB_ID = Pattern.compile("[0-9a-fA-F]{7,40}");
+
+    private final Project project;
+    private final VirtualFile[] roots;
+
+    public GitContentProvider(Project project, VirtualFile[] roots) {
+        this.project = project;
+        this.roots = roots;
+    }
+
+    @Override
+    public String content(String revision, String path) throws VcsException {
+        if (revision == null || !BLOB_ID.matcher(revision).matches()) return null;
+
+        for (VirtualFile root : roots) {
+            String content = blob(root, revision);
+            if (content != null) return content;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the blob with a single git process, a revision missing from the root makes it fail.
+     */
+    private String blob(VirtualFile root, String revision) {
+        GitSimpleHandler handler = new GitSimpleHandler(project, root, GitCommand.CAT_FILE);
+        handler.setSilent(true);
+        handler.setStdoutSuppressed(true);
+        handler.setStderrSuppressed(true);
+        handler.addParameters("blob", revision);
+        LOG.debug("Executing git command : " + handler.printableCommandLine());
+        try {
+            return handler.run();
+        } catch (VcsException e) {
+            LOG.debug("Blob " + revision + " not found in " + root.getPath(), e);
+            return null;
+        }
+    }
+}
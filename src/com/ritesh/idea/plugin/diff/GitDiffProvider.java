@@ -17,25 +17,29 @@
 package com.ritesh.idea.plugin.diff;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.VcsDataKeys;
 import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.history.VcsRevisionNumber;
 import com.intellij.openapi.vfs.VirtualFile;
-import git4idea.commands.GitCommand;
-import git4idea.commands.GitSimpleHandler;
+import git4idea.config.GitVcsApplicationSettings;
 
+import java.io.File;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * @author Ritesh
  */
 public class GitDiffProvider implements IVcsDiffProvider {
+    private final VirtualFile root;
 
-    private static final Logger LOG = Logger.getInstance(GitDiffProvider.class);
+    public GitDiffProvider(VirtualFile root) {
+        this.root = root;
+    }
 
     @Override
     public boolean isFromRevision(Project project, AnActionEvent action) throws VcsException {
@@ -44,11 +48,10 @@ public class GitDiffProvider implements IVcsDiffProvider {
     }
 
     @Override
-    public String generateDiff(Project project, AnActionEvent action) throws VcsException {
-        String diffContent;
+    public void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException {
         VcsRevisionNumber[] data = action.getData(VcsDataKeys.VCS_REVISION_NUMBERS);
         if (data != null) {
-            diffContent = fromRevisions(project, project.getBaseDir(), data[data.length - 1], data[0]);
+            fromRevisions(root, data[data.length - 1], data[0], out);
         } else {
             final Change[] changes = action.getData(VcsDataKeys.CHANGES);
 //            if (changes == null) {
@@ -60,31 +63,26 @@ public class GitDiffProvider implements IVcsDiffProvider {
 //                    virtualFiles.add(change.getVirtualFile());
 //                }
 //            }
-            diffContent = fromHead(project, project.getBaseDir(), virtualFiles);
+            fromHead(root, virtualFiles, out);
         }
-        return diffContent;
     }
 
-    private String fromRevisions(Project project, VirtualFile root, VcsRevisionNumber beforeRevisionNumber,
-                                 VcsRevisionNumber afterRevisionNumber) throws VcsException {
+    private void fromRevisions(VirtualFile root, VcsRevisionNumber beforeRevisionNumber,
+                               VcsRevisionNumber afterRevisionNumber, OutputStream out) throws VcsException {
         //TODO: First commit results in error
-        GitSimpleHandler handler = new GitSimpleHandler(project, root, GitCommand.DIFF);
-        handler.addParameters(beforeRevisionNumber.asString() + "^");
-        handler.addParameters(afterRevisionNumber.asString());
-        handler.setSilent(true);
-        handler.setStdoutSuppressed(true);
-        LOG.info("Executing git command : " + handler.printableCommandLine());
-        return handler.run();
+        DiffProcess.run(Arrays.asList(git(), "diff", "--no-color", "--no-ext-diff", beforeRevisionNumber.asString() + "^",
+                afterRevisionNumber.asString()), new File(root.getPath()), out);
     }
 
-    private String fromHead(Project project, VirtualFile root, List<VirtualFile> virtualFiles) throws VcsException {
+    private void fromHead(VirtualFile root, List<VirtualFile> virtualFiles, OutputStream out) throws VcsException {
         //TODO: publish only selected changes attribute (need to handle deleted files)
-        GitSimpleHandler handler = new GitSimpleHandler(project, root, GitCommand.DIFF);
-        handler.setSilent(true);
-        handler.setStdoutSuppressed(true);
-        handler.addParameters("HEAD");
-        //handler.addRelativeFiles(virtualFiles);
-        LOG.info("Executing git command : " + handler.printableCommandLine());
-        return handler.run();
+        new IncrementalGitDiff(git(), new File(root.getPath())).write(out);
+    }
+
+    /**
+     * Git is run directly rather than through a git4idea handler, which collects the whole output in memory.
+     */
+    private static String git() {
+        return GitVcsApplicationSettings.getInstance().getPathToGit();
     }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.vcs.VcsException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What git knows about the changed files of a working tree and the IDE does not: their modes in HEAD and in the
+ * working tree, and whether git filters their content (line endings, ident or a filter driver) before hashing it.
+ */
+final class GitWorkingTree {
+    private static final String NO_MODE = "000000";
+    private static final String UNSPECIFIED = "unspecified";
+    private static final String UNSET = "unset";
+    // Keeps command lines well below the limit of windows
+    private static final int MAX_PATHS_PER_COMMAND = 100;
+
+    private final Map<String, String[]> modes = new HashMap<>();
+    private final Map<String, Map<String, String>> attributes = new HashMap<>();
+    private String autoCrlf;
+
+    private GitWorkingTree() {
+    }
+
+    static GitWorkingTree read(String git, File root) throws VcsException {
+        GitWorkingTree tree = new GitWorkingTree();
+        // :oldmode newmode oldblob newblob status, followed by the path
+        String[] fields = run(Arrays.asList(git, "diff", "--raw", "-z", "--no-abbrev", "--no-renames", "HEAD"), root);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            String[] raw = fields[i].split(" ");
+            tree.modes.put(fields[i + 1], new String[]{raw[0].substring(1), raw[1]});
+        }
+        // key and value of each entry are separated by a new line, the last one wins
+        for (String entry : run(Arrays.asList(git, "config", "-z", "--list"), root)) {
+            int end = entry.indexOf('\n');
+            if (end > 0 && entry.substring(0, end).equalsIgnoreCase("core.autocrlf")) {
+                tree.autoCrlf = entry.substring(end + 1);
+            }
+        }
+        List<String> paths = new ArrayList<>(tree.modes.keySet());
+        for (int i = 0; i < paths.size(); i += MAX_PATHS_PER_COMMAND) {
+            List<String> command = new ArrayList<>(Arrays.asList(git, "check-attr", "-z",
+                    "text", "eol", "crlf", "ident", "filter", "--"));
+            command.addAll(paths.subList(i, Math.min(paths.size(), i + MAX_PATHS_PER_COMMAND)));
+            // path, attribute and value of each attribute
+            String[] values = run(command, root);
+            for (int j = 0; j + 2 < values.length; j += 3) {
+                Map<String, String> fileAttributes = tree.attributes.get(values[j]);
+                if (fileAttributes == null) tree.attributes.put(values[j], fileAttributes = new HashMap<>());
+                fileAttributes.put(values[j + 1], values[j + 2]);
+            }
+        }
+        return tree;
+    }
+
+    private static String[] run(List<String> command, File root) throws VcsException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DiffProcess.run(command, root, out);
+        String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return output.isEmpty() ? new String[0] : output.split("\0");
+    }
+
+    String oldMode(String path) throws VcsException {
+        return mode(path, 0);
+    }
+
+    String newMode(String path) throws VcsException {
+        return mode(path, 1);
+    }
+
+    boolean isModeChanged(String path) {
+        String[] fileModes = modes.get(path);
+        return fileModes != null && !NO_MODE.equals(fileModes[0]) && !NO_MODE.equals(fileModes[1])
+                && !fileModes[0].equals(fileModes[1]);
+    }
+
+    private String mode(String path, int index) throws VcsException {
+        String[] fileModes = modes.get(path);
+        if (fileModes == null || NO_MODE.equals(fileModes[index])) {
+            throw new VcsException("Git does not list " + path + " as changed");
+        }
+        return fileModes[index];
+    }
+
+    /**
+     * Whether git changes the content of the working tree file before hashing it, so that its blob id is not the
+     * hash of the bytes on disk.
+     */
+    boolean isFiltered(String path, byte[] content) {
+        Map<String, String> fileAttributes = attributes.get(path);
+        if (fileAttributes == null) fileAttributes = new HashMap<>();
+        if (isSet(fileAttributes.get("filter")) || isSet(fileAttributes.get("ident"))) return true;
+        String text = fileAttributes.get("text");
+        String crlf = fileAttributes.get("crlf");
+        boolean convertsLineEndings;
+        if (UNSET.equals(text) || UNSET.equals(crlf)) {
+            convertsLineEndings = false;
+        } else if (isSet(text) || isSet(fileAttributes.get("eol")) || isSet(crlf)) {
+            convertsLineEndings = true;
+        } else {
+            convertsLineEndings = autoCrlf != null
+                    && !Arrays.asList("false", "no", "off", "0", "").contains(autoCrlf.toLowerCase(Locale.ENGLISH));
+        }
+        // Only CRLF is turned into LF when the content is added
+        return convertsLineEndings && containsCrLf(content);
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !UNSPECIFIED.equals(value) && !UNSET.equals(value);
+    }
+
+    private static boolean containsCrLf(byte[] content) {
+        for (int i = 0; i + 1 < content.length; i++) {
+            if (content[i] == '\r' && content[i + 1] == '\n') return true;
+        }
+        return false;
+    }
+}
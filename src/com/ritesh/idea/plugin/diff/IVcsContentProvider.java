@@ -0,0 +1,29 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.vcs.VcsException;
+
+/**
+ * Reads file contents at a revision from the local repository, without going to the network.
+ */
+public interface IVcsContentProvider {
+    /**
+     * @return contents or null if the revision is not available locally
+     */
+    String content(String revision, String path) throws VcsException;
+}
@@ -21,11 +21,16 @@ import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.VcsException;
 
+import java.io.OutputStream;
+
 /**
  * @author ritesh
  */
 public interface IVcsDiffProvider {
     boolean isFromRevision(Project project, AnActionEvent action) throws VcsException;
 
-    String generateDiff(Project project, AnActionEvent action) throws VcsException;
+    /**
+     * Writes the diff to the stream as it is generated, without holding all of it in memory.
+     */
+    void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException;
 }
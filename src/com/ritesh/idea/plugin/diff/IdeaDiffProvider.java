@@ -25,9 +25,8 @@ import com.intellij.openapi.vcs.changes.Change;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.Arrays;
 
 /**
@@ -40,17 +39,17 @@ public class IdeaDiffProvider implements IVcsDiffProvider {
     }
 
     @Override
-    public String generateDiff(Project project, AnActionEvent action) throws VcsException {
+    public void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException {
+        File tempFile = null;
         try {
             Change[] data = action.getData(VcsDataKeys.CHANGES);
-            File tempFile = File.createTempFile("diff", "patch");
+            tempFile = File.createTempFile("diff", "patch");
             PatchCreator.create(project, Arrays.asList(data), tempFile.getPath(), false, null);
-            byte[] encoded = Files.readAllBytes(Paths.get(tempFile.getPath()));
-            String contents = new String(encoded, StandardCharsets.UTF_8);
-            return contents;
+            Files.copy(tempFile.toPath(), out);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new VcsException(e);
+        } finally {
+            if (tempFile != null) tempFile.delete();
         }
-        return null;
     }
 }
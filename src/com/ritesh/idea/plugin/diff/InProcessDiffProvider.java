@@ -0,0 +1,246 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vcs.FilePath;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.BinaryContentRevision;
+import com.intellij.openapi.vcs.changes.ByteBackedContentRevision;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.vcs.changes.ChangesUtil;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.diff.FilesTooBigForDiffException;
+import git4idea.config.GitVcsApplicationSettings;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates the diff of the local changes of a root inside the IDE, in the format rbt produces for Review Board:
+ * git diffs with their extended headers and blob ids, svn diffs with copied and moved files written as adds.
+ * Revisions, anything the IDE cannot load the raw content of and files git filters before hashing them are left to
+ * the fallback.
+ */
+public class InProcessDiffProvider implements IVcsDiffProvider {
+    private static final Logger LOG = Logger.getInstance(InProcessDiffProvider.class);
+    private static final String NULL_BLOB = "0000000000000000000000000000000000000000";
+    private static final String SVN_SEPARATOR = "===================================================================\n";
+    private static final byte[] EMPTY = new byte[0];
+
+    private final VirtualFile root;
+    private final boolean svn;
+    private final IVcsDiffProvider fallback;
+
+    public InProcessDiffProvider(VirtualFile root, boolean svn, IVcsDiffProvider fallback) {
+        this.root = root;
+        this.svn = svn;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public boolean isFromRevision(Project project, AnActionEvent action) throws VcsException {
+        return fallback.isFromRevision(project, action);
+    }
+
+    @Override
+    public void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException {
+        if (fallback.isFromRevision(project, action)) {
+            fallback.generateDiff(project, action, out);
+            return;
+        }
+        SpooledDiff diff;
+        try {
+            diff = SpooledDiff.create();
+        } catch (IOException e) {
+            throw new VcsException(e);
+        }
+        try {
+            if (writeDiff(project, diff)) {
+                Files.copy(diff.getFile().toPath(), out);
+            } else {
+                fallback.generateDiff(project, action, out);
+            }
+        } catch (IOException e) {
+            throw new VcsException(e);
+        } finally {
+            diff.delete();
+        }
+    }
+
+    private boolean writeDiff(Project project, SpooledDiff diff) {
+        try (OutputStream out = diff.openStream()) {
+            // svn diffs carry no modes and svn hashes nothing, only git needs to be asked
+            GitWorkingTree tree = svn ? null : GitWorkingTree.read(
+                    GitVcsApplicationSettings.getInstance().getPathToGit(), new File(root.getPath()));
+            for (Change change : changes(project)) {
+                ContentRevision before = change.getBeforeRevision();
+                ContentRevision after = change.getAfterRevision();
+                if (before != null && after != null && !before.getFile().equals(after.getFile())) {
+                    // moved or renamed, written as a delete and an add
+                    writeFile(out, tree, before, null);
+                    writeFile(out, tree, null, after);
+                } else {
+                    writeFile(out, tree, before, after);
+                }
+            }
+            return true;
+        } catch (IOException | VcsException | FilesTooBigForDiffException e) {
+            LOG.warn("Could not generate the diff in-process, falling back to rbt", e);
+            return false;
+        }
+    }
+
+    private List<Change> changes(Project project) {
+        ProjectLevelVcsManager vcsManager = ProjectLevelVcsManager.getInstance(project);
+        List<Change> changes = new ArrayList<>();
+        for (Change change : ChangeListManager.getInstance(project).getAllChanges()) {
+            if (root.equals(vcsManager.getVcsRootFor(ChangesUtil.getFilePath(change)))) {
+                changes.add(change);
+            }
+        }
+        Collections.sort(changes, new Comparator<Change>() {
+            @Override
+            public int compare(Change o1, Change o2) {
+                return ChangesUtil.getFilePath(o1).getPath().compareTo(ChangesUtil.getFilePath(o2).getPath());
+            }
+        });
+        return changes;
+    }
+
+    private void writeFile(OutputStream out, GitWorkingTree tree, ContentRevision before, ContentRevision after)
+            throws IOException, VcsException, FilesTooBigForDiffException {
+        FilePath file = (after != null ? after : before).getFile();
+        String path = FileUtil.getRelativePath(root.getPath(), file.getPath(), '/');
+        byte[] oldContent = before == null ? EMPTY : content(before);
+        byte[] newContent = after == null ? EMPTY : content(after);
+        boolean changed = !Arrays.equals(oldContent, newContent);
+        if (before != null && after != null && !changed && (svn || !tree.isModeChanged(path))) return;
+        if (!svn && after != null && tree.isFiltered(path, newContent)) {
+            throw new VcsException("Git filters the content of " + path + ", its blob id is not known");
+        }
+
+        boolean binary = isBinary(before) || isBinary(after);
+        if (svn) {
+            writeSvnHeader(out, path, binary);
+        } else {
+            writeGitHeader(out, tree, path, before, after, oldContent, newContent, changed, binary);
+        }
+        if (!binary && changed) {
+            if (svn) {
+                String revision = before == null ? "0" : before.getRevisionNumber().asString();
+                UnifiedDiff.write(out, "--- " + path + "\t(revision " + revision + ")\n");
+                UnifiedDiff.write(out, "+++ " + path + "\t(working copy)\n");
+            } else {
+                UnifiedDiff.write(out, "--- " + (before == null ? "/dev/null" : "a/" + path) + "\n");
+                UnifiedDiff.write(out, "+++ " + (after == null ? "/dev/null" : "b/" + path) + "\n");
+            }
+            new UnifiedDiff(oldContent, newContent).write(out);
+        }
+    }
+
+    private static void writeSvnHeader(OutputStream out, String path, boolean binary) throws IOException {
+        UnifiedDiff.write(out, "Index: " + path + "\n" + SVN_SEPARATOR);
+        if (binary) {
+            UnifiedDiff.write(out, "Cannot display: file marked as a binary type.\n"
+                    + "svn:mime-type = application/octet-stream\n");
+        }
+    }
+
+    /**
+     * Writes the extended header as git does, modes are those of HEAD and of the working tree as git sees them.
+     */
+    private static void writeGitHeader(OutputStream out, GitWorkingTree tree, String path, ContentRevision before,
+                                       ContentRevision after, byte[] oldContent, byte[] newContent, boolean changed,
+                                       boolean binary) throws IOException, VcsException {
+        String oldBlob = before == null ? NULL_BLOB : blobId(oldContent);
+        String newBlob = after == null ? NULL_BLOB : blobId(newContent);
+        UnifiedDiff.write(out, "diff --git a/" + path + " b/" + path + "\n");
+        if (before == null) {
+            UnifiedDiff.write(out, "new file mode " + tree.newMode(path) + "\nindex " + oldBlob + ".." + newBlob
+                    + "\n");
+        } else if (after == null) {
+            UnifiedDiff.write(out, "deleted file mode " + tree.oldMode(path) + "\nindex " + oldBlob + ".." + newBlob
+                    + "\n");
+        } else {
+            String oldMode = tree.oldMode(path);
+            String newMode = tree.newMode(path);
+            if (!oldMode.equals(newMode)) {
+                UnifiedDiff.write(out, "old mode " + oldMode + "\nnew mode " + newMode + "\n");
+                // Only the mode changed, there is no index line either
+                if (!changed) return;
+                UnifiedDiff.write(out, "index " + oldBlob + ".." + newBlob + "\n");
+            } else {
+                UnifiedDiff.write(out, "index " + oldBlob + ".." + newBlob + " " + oldMode + "\n");
+            }
+        }
+        if (binary) {
+            UnifiedDiff.write(out, "Binary files " + (before == null ? "/dev/null" : "a/" + path) + " and "
+                    + (after == null ? "/dev/null" : "b/" + path) + " differ\n");
+        }
+    }
+
+    /**
+     * Id git gives to a blob with the content, Review Board looks up the original file by it.
+     */
+    private static String blobId(byte[] content) {
+        MessageDigest digest = DigestUtils.getSha1Digest();
+        digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+        digest.update(content);
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static boolean isBinary(ContentRevision revision) {
+        return revision != null
+                && (revision instanceof BinaryContentRevision || revision.getFile().getFileType().isBinary());
+    }
+
+    /**
+     * Raw bytes of the revision. Text re-encoded from a string would lose its line separators and BOM and give other
+     * blob ids, such revisions are left to the fallback.
+     */
+    private static byte[] content(ContentRevision revision) throws VcsException {
+        byte[] content;
+        if (revision instanceof ByteBackedContentRevision) {
+            content = ((ByteBackedContentRevision) revision).getContentAsBytes();
+        } else if (revision instanceof BinaryContentRevision) {
+            content = ((BinaryContentRevision) revision).getBinaryContent();
+        } else {
+            throw new VcsException("Raw content of " + revision.getFile().getPath() + " is not available");
+        }
+        if (content == null) throw new VcsException("Could not load the content of " + revision.getFile().getPath());
+        return content;
+    }
+}
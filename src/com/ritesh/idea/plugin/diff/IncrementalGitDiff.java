@@ -0,0 +1,212 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.vcs.VcsException;
+import com.ritesh.idea.plugin.util.DiskContentCache;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diff of the working tree against HEAD, assembled from diffs of single files which are cached by the blob the file
+ * is based on and the hash of its content. Listing the changed files is cheap for git, only files whose content
+ * changed since the last diff are diffed again.
+ * <p>
+ * Diffs are kept as ISO-8859-1 strings, which maps every byte to a char and back, so that files in any encoding are
+ * cached unchanged.
+ */
+class IncrementalGitDiff {
+    private static final Logger LOG = Logger.getInstance(IncrementalGitDiff.class);
+    private static final String CACHE_DIR = "review-board/diffs";
+    private static final long CACHE_SIZE = 64 * 1024 * 1024;
+    // Keeps command lines well below the limit of windows
+    private static final int MAX_PATHS_PER_COMMAND = 100;
+    private static final String FILE_HEADER = "diff --git ";
+
+    private static DiskContentCache cache;
+
+    private final String git;
+    private final File root;
+
+    private static class Entry {
+        String path;
+        String key;
+        String contentHash;
+    }
+
+    IncrementalGitDiff(String git, File root) {
+        this.git = git;
+        this.root = root;
+    }
+
+    private static synchronized DiskContentCache cache() {
+        if (cache == null) cache = new DiskContentCache(new File(PathManager.getSystemPath(), CACHE_DIR), CACHE_SIZE);
+        return cache;
+    }
+
+    void write(OutputStream out) throws VcsException {
+        List<Entry> entries = changedFiles();
+        List<Entry> misses = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (!cache().contains(entry.key)) misses.add(entry);
+        }
+        LOG.info("Diff of " + entries.size() + " files in " + root + ", " + misses.size() + " not cached");
+        for (int i = 0; i < misses.size(); i += MAX_PATHS_PER_COMMAND) {
+            diffAndCache(misses.subList(i, Math.min(misses.size(), i + MAX_PATHS_PER_COMMAND)));
+        }
+
+        try {
+            for (Entry entry : entries) {
+                Ref<String> cached = cache().get(entry.key);
+                if (cached != null && cached.get() != null) {
+                    out.write(cached.get().getBytes(StandardCharsets.ISO_8859_1));
+                } else {
+                    // Evicted already or its header could not be matched to the file
+                    DiffProcess.run(diffCommand(Arrays.asList(entry)), root, out);
+                }
+            }
+        } catch (IOException e) {
+            throw new VcsException(e);
+        }
+    }
+
+    /**
+     * Lists changed files with the blobs they are based on, as NUL separated records of
+     * {@code :oldmode newmode oldblob newblob status} followed by the path.
+     */
+    private List<Entry> changedFiles() throws VcsException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DiffProcess.run(Arrays.asList(git, "diff", "--raw", "-z", "--no-abbrev", "--no-renames", "HEAD"), root, raw);
+        String[] fields = new String(raw.toByteArray(), StandardCharsets.ISO_8859_1).split("\0");
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            Entry entry = new Entry();
+            entry.path = fields[i + 1];
+            entry.contentHash = contentHash(new File(root, entry.path));
+            entry.key = DigestUtils.sha1Hex(root.getPath() + '\0' + entry.path + '\0' + fields[i] + '\0'
+                    + entry.contentHash);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static String contentHash(File file) throws VcsException {
+        try (InputStream in = new FileInputStream(file)) {
+            return DigestUtils.sha1Hex(in);
+        } catch (FileNotFoundException e) {
+            return "deleted";
+        } catch (IOException e) {
+            throw new VcsException(e);
+        }
+    }
+
+    private List<String> diffCommand(List<Entry> entries) {
+        List<String> command = new ArrayList<>(Arrays.asList(git, "--literal-pathspecs", "-c", "core.quotepath=false",
+                "diff", "--no-color", "--no-ext-diff", "--no-renames", "HEAD", "--"));
+        for (Entry entry : entries) command.add(entry.path);
+        return command;
+    }
+
+    private void diffAndCache(List<Entry> entries) throws VcsException {
+        Map<String, Entry> byHeader = new HashMap<>();
+        for (Entry entry : entries) byHeader.put(FILE_HEADER + "a/" + entry.path + " b/" + entry.path, entry);
+        FileDiffSplitter splitter = new FileDiffSplitter(byHeader);
+        DiffProcess.run(diffCommand(entries), root, splitter);
+        splitter.close();
+        // Files listed as changed without a diff, such as touched ones, are cached as such unless some diff could
+        // not be matched to its file
+        if (splitter.unmatched == 0) {
+            for (Entry entry : entries) {
+                if (!splitter.diffs.containsKey(entry)) splitter.diffs.put(entry, "");
+            }
+        }
+        // git diff reads the file after it was hashed for the key, a diff of content changed meanwhile is dropped
+        for (Map.Entry<Entry, String> diff : splitter.diffs.entrySet()) {
+            Entry entry = diff.getKey();
+            if (entry.contentHash.equals(contentHash(new File(root, entry.path)))) {
+                cache().put(entry.key, diff.getValue());
+            } else {
+                LOG.info("Not caching diff of " + entry.path + ", it changed while being diffed");
+            }
+        }
+    }
+
+    /**
+     * Cuts the output of git diff at file headers and keeps the diff of every file it can match to an entry.
+     */
+    private static class FileDiffSplitter extends OutputStream {
+        private final Map<String, Entry> byHeader;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream fileDiff = new ByteArrayOutputStream();
+        private final Map<Entry, String> diffs = new HashMap<>();
+        private int unmatched;
+        private Entry entry;
+
+        FileDiffSplitter(Map<String, Entry> byHeader) {
+            this.byHeader = byHeader;
+        }
+
+        @Override
+        public void write(int b) {
+            line.write(b);
+            if (b == '\n') endLine();
+        }
+
+        private void endLine() {
+            byte[] bytes = line.toByteArray();
+            line.reset();
+            if (bytes[0] == 'd') {
+                String text = new String(bytes, StandardCharsets.ISO_8859_1);
+                if (text.startsWith(FILE_HEADER)) {
+                    endFile();
+                    entry = byHeader.get(text.trim());
+                    if (entry == null) unmatched++;
+                }
+            }
+            fileDiff.write(bytes, 0, bytes.length);
+        }
+
+        private void endFile() {
+            if (entry != null) {
+                diffs.put(entry, new String(fileDiff.toByteArray(), StandardCharsets.ISO_8859_1));
+            }
+            fileDiff.reset();
+        }
+
+        @Override
+        public void close() {
+            if (line.size() > 0) endLine();
+            endFile();
+        }
+    }
+}
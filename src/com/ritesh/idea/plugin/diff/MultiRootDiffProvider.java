@@ -0,0 +1,318 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ritesh.idea.plugin.diff;
+
+import com.google.common.io.ByteStreams;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsDataKeys;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeList;
+import com.intellij.openapi.vcs.changes.ChangesUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.vcs.log.CommitId;
+import com.intellij.vcs.log.VcsLog;
+import com.intellij.vcs.log.VcsLogDataKeys;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.info.Info;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Diff of a project with several vcs roots. A review request has a single repository, so roots are only merged when
+ * all of them are svn working copies of the same repository: each is diffed in parallel into its own spooled diff,
+ * which are then written out in root order with the file paths made relative to the repository root. Otherwise, as
+ * for git roots which are each a repository of their own, only the root of the selected changes or of the project
+ * base dir is diffed.
+ */
+public class MultiRootDiffProvider implements IVcsDiffProvider {
+    private static final Logger LOG = Logger.getInstance(MultiRootDiffProvider.class);
+    private static final int MAX_PARALLEL_ROOTS = 4;
+    private static final ExecutorService EXECUTOR =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("Review Board Diff", MAX_PARALLEL_ROOTS);
+
+    private final List<Root> roots;
+
+    public MultiRootDiffProvider(List<Root> roots) {
+        this.roots = roots;
+    }
+
+    @Override
+    public boolean isFromRevision(Project project, AnActionEvent action) throws VcsException {
+        for (Root root : roots) {
+            if (root.provider.isFromRevision(project, action)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void generateDiff(final Project project, final AnActionEvent action, OutputStream out) throws VcsException {
+        // Selected revisions belong to a single repository, only the root owning them is diffed
+        if (isFromRevision(project, action)) {
+            Root root = selectedRoot(project, action);
+            if (root == null || !root.provider.isFromRevision(project, action)) {
+                throw new VcsException("Unable to find the repository of the selected revisions");
+            }
+            root.provider.generateDiff(project, action, out);
+            return;
+        }
+        final List<String> prefixes = repositoryPaths(project);
+        if (prefixes == null) {
+            Root root = selectedRoot(project, action);
+            if (root == null) root = baseDirRoot(project);
+            if (root == null) {
+                throw new VcsException("Project has several repositories, select the changes of one of them");
+            }
+            root.provider.generateDiff(project, action, out);
+            return;
+        }
+
+        List<SpooledDiff> diffs = new ArrayList<>();
+        List<Future<SpooledDiff>> futures = new ArrayList<>();
+        try {
+            for (final Root root : roots) {
+                futures.add(EXECUTOR.submit(new Callable<SpooledDiff>() {
+                    @Override
+                    public SpooledDiff call() throws Exception {
+                        SpooledDiff diff = SpooledDiff.create();
+                        try (OutputStream stream = diff.openStream()) {
+                            root.provider.generateDiff(project, action, stream);
+                        } catch (Exception e) {
+                            diff.delete();
+                            throw e;
+                        }
+                        return diff;
+                    }
+                }));
+            }
+            for (Future<SpooledDiff> future : futures) {
+                diffs.add(await(future));
+            }
+            for (int i = 0; i < roots.size(); i++) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(diffs.get(i).getFile()))) {
+                    copy(in, out, prefixes.get(i));
+                }
+            }
+        } catch (IOException e) {
+            throw new VcsException(e);
+        } finally {
+            for (Future<SpooledDiff> future : futures) {
+                future.cancel(true);
+            }
+            for (SpooledDiff diff : diffs) {
+                diff.delete();
+            }
+        }
+    }
+
+    /**
+     * Root of the files changed by the selection, or of the commits selected in the log.
+     */
+    private Root selectedRoot(Project project, AnActionEvent action) {
+        ProjectLevelVcsManager vcsManager = ProjectLevelVcsManager.getInstance(project);
+        List<Change> changes = new ArrayList<>();
+        Change[] selectedChanges = action.getData(VcsDataKeys.CHANGES);
+        if (selectedChanges != null) changes.addAll(Arrays.asList(selectedChanges));
+        ChangeList[] changeLists = action.getData(VcsDataKeys.CHANGE_LISTS);
+        if (changeLists != null) {
+            for (ChangeList changeList : changeLists) changes.addAll(changeList.getChanges());
+        }
+        for (Change change : changes) {
+            Root root = root(vcsManager.getVcsRootFor(ChangesUtil.getFilePath(change)));
+            if (root != null) return root;
+        }
+        VcsLog log = action.getData(VcsLogDataKeys.VCS_LOG);
+        if (log != null) {
+            for (CommitId commit : log.getSelectedCommits()) {
+                Root root = root(commit.getRoot());
+                if (root != null) return root;
+            }
+        }
+        return null;
+    }
+
+    private Root baseDirRoot(Project project) {
+        VirtualFile baseDir = project.getBaseDir();
+        if (baseDir == null) return null;
+        for (Root root : roots) {
+            if (root.path != null && VfsUtilCore.isAncestor(root.path, baseDir, false)) return root;
+        }
+        return null;
+    }
+
+    /**
+     * Paths of the roots in their repository, null unless all of them are svn working copies of the same repository.
+     */
+    private List<String> repositoryPaths(Project project) {
+        List<String> paths = new ArrayList<>();
+        String repository = null;
+        for (Root root : roots) {
+            Info info = root.svn ? SvnVcs.getInstance(project).getInfo(root.path) : null;
+            String path = info != null ? repositoryPath(info) : null;
+            if (path == null) return null;
+            if (repository != null && !repository.equals(String.valueOf(info.getRepositoryRootURL()))) {
+                LOG.info("Roots of " + repository + " and " + info.getRepositoryRootURL() + " are not merged");
+                return null;
+            }
+            repository = String.valueOf(info.getRepositoryRootURL());
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Path of an svn working copy in its repository, empty or ending with a slash, null if unknown.
+     */
+    private static String repositoryPath(Info info) {
+        if (info.getRepositoryRootURL() == null || info.getURL() == null) return null;
+        try {
+            String repositoryPath = new URI(String.valueOf(info.getRepositoryRootURL())).getPath();
+            String path = new URI(String.valueOf(info.getURL())).getPath();
+            if (repositoryPath == null || path == null || !path.startsWith(repositoryPath)) return null;
+            path = StringUtil.trimStart(path.substring(repositoryPath.length()), "/");
+            return path.isEmpty() ? "" : path + "/";
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private Root root(VirtualFile path) {
+        if (path == null) return null;
+        for (Root root : roots) {
+            if (path.equals(root.path)) return root;
+        }
+        return null;
+    }
+
+    private static SpooledDiff await(Future<SpooledDiff> future) throws VcsException {
+        while (true) {
+            ProgressManager.checkCanceled();
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VcsException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof VcsException) throw (VcsException) e.getCause();
+                throw new VcsException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Copies the diff of a root, prefixing the paths in the file headers with the root's path in the repository.
+     * Only lines before the first hunk of a file are headers, a removed line starting with "-- " looks like one
+     * otherwise.
+     */
+    static void copy(InputStream in, OutputStream out, String prefix) throws IOException {
+        if (prefix.isEmpty()) {
+            ByteStreams.copy(in, out);
+            return;
+        }
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        boolean inHeader = false;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (line.size() == 0 && b != 'd' && b != 'I' && b != '-' && b != '+' && b != '@') {
+                // content or other lines are copied as they are, without buffering
+                out.write(b);
+                if (b != '\n') {
+                    while ((b = in.read()) != -1) {
+                        out.write(b);
+                        if (b == '\n') break;
+                    }
+                }
+                continue;
+            }
+            line.write(b);
+            if (b == '\n') {
+                String text = new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+                if (text.startsWith("diff --git ") || text.startsWith("Index: ")) {
+                    inHeader = true;
+                    text = prefixHeader(text, prefix);
+                } else if (text.startsWith("@@")) {
+                    inHeader = false;
+                } else if (inHeader && (text.startsWith("--- ") || text.startsWith("+++ "))) {
+                    text = text.substring(0, 4) + prefixPath(text.substring(4), prefix);
+                }
+                out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+                line.reset();
+            }
+        }
+        line.writeTo(out);
+    }
+
+    private static String prefixHeader(String line, String prefix) {
+        if (line.startsWith("Index: ")) return "Index: " + prefix + line.substring(7);
+        String paths = line.substring(11);
+        int newPath = Math.max(paths.lastIndexOf(" b/"), paths.lastIndexOf(" \"b/"));
+        if (newPath < 0) return line;
+        return "diff --git " + prefixPath(paths.substring(0, newPath), prefix) + " "
+                + prefixPath(paths.substring(newPath + 1), prefix);
+    }
+
+    private static String prefixPath(String path, String prefix) {
+        if (path.startsWith("/dev/null")) return path;
+        if (path.startsWith("a/") || path.startsWith("b/")) return path.substring(0, 2) + prefix + path.substring(2);
+        if (path.startsWith("\"a/") || path.startsWith("\"b/")) {
+            return path.substring(0, 3) + prefix + path.substring(3);
+        }
+        return prefix + path;
+    }
+
+    /**
+     * A vcs root, only diffs of svn working copies may be merged.
+     */
+    public static class Root {
+        public final IVcsDiffProvider provider;
+        public final VirtualFile path;
+        public final boolean svn;
+
+        public Root(IVcsDiffProvider provider, VirtualFile path, boolean svn) {
+            this.provider = provider;
+            this.path = path;
+            this.svn = svn;
+        }
+    }
+}
@@ -16,9 +16,7 @@
 
 package com.ritesh.idea.plugin.diff;
 
-import com.google.common.io.CharStreams;
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.AbstractVcs;
 import com.intellij.openapi.vcs.VcsDataKeys;
@@ -26,33 +24,37 @@ import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.changes.ChangeList;
 import com.intellij.openapi.vcs.history.VcsRevisionNumber;
 import com.intellij.openapi.vcs.versionBrowser.CommittedChangeList;
+import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.idea.svn.SvnVcs;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by ritesh on 18/12/15.
  */
 public class RbToolsDiffProvider implements IVcsDiffProvider {
-    private static final Logger LOG = Logger.getInstance(RbToolsDiffProvider.class);
+    private static final long RBT_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
 
     private String userName;
     private String password;
     private String url;
     private String rbtPath;
     private AbstractVcs vcs;
+    private VirtualFile root;
 
-    public RbToolsDiffProvider(String url, String userName, String password, String rbtPath, AbstractVcs vcs) {
+    public RbToolsDiffProvider(String url, String userName, String password, String rbtPath, AbstractVcs vcs,
+                               VirtualFile root) {
         this.userName = userName;
         this.password = password;
         this.url = url;
         this.rbtPath = rbtPath;
         this.vcs = vcs;
+        this.root = root;
     }
 
     @Override
@@ -77,20 +79,17 @@ public class RbToolsDiffProvider implements IVcsDiffProvider {
     }
 
     @Override
-    public String generateDiff(Project project, AnActionEvent action) throws VcsException {
+    public void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException {
         VcsRevision revision = revision(project, action);
         List<String> options = new ArrayList<>();
-        try {
-            if (vcs instanceof SvnVcs) {
-                options.addAll(Arrays.asList("--svn-show-copies-as-adds", "y"));
-            }
-            return generateDiff(revision, project.getBaseDir().getPath(), options);
-        } catch (IOException e) {
-            throw new VcsException(e);
+        if (vcs instanceof SvnVcs) {
+            options.addAll(Arrays.asList("--svn-show-copies-as-adds", "y"));
         }
+        generateDiff(revision, root.getPath(), options, out);
     }
 
-    private String generateDiff(VcsRevision revision, String rootPath, List<String> additionalOptions) throws IOException {
+    private void generateDiff(VcsRevision revision, String rootPath, List<String> additionalOptions,
+                              OutputStream out) throws VcsException {
         List<String> commands = new ArrayList<>();
         String processPath = (rbtPath == null ? "rbt" : rbtPath);
         commands.addAll(Arrays.asList(processPath, "diff", "--server", url, "--username", userName, "--password", password));
@@ -102,20 +101,8 @@ public class RbToolsDiffProvider implements IVcsDiffProvider {
                 commands.add(revision.toRevision());
         }
 
-        LOG.info("Running command : " + commands);
-
-        ProcessBuilder builder = new ProcessBuilder(commands);
-        builder.directory(new File(rootPath));
-        builder.redirectErrorStream(true);
-        Process process = builder.start();
-
-        String stdInput = CharStreams.toString(new InputStreamReader(process.getInputStream()));
-        String stdErrorInput = CharStreams.toString(new InputStreamReader(process.getErrorStream()));
-        if (stdErrorInput.trim().isEmpty()) {
-            return stdInput;
-        } else {
-            throw new RuntimeException("Error : " + stdErrorInput);
-        }
+        // Errors are kept apart from the diff, rbt reports them on the error output with a non zero exit code
+        DiffProcess.run(commands, new File(rootPath), out, RBT_TIMEOUT);
     }
 
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.util.text.StringUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Diff written to a temporary file as it is generated, so that it is never held in memory. Counts its size and the
+ * number of files it changes while it is written.
+ */
+public class SpooledDiff {
+    private final File file;
+    private long size;
+    private int files;
+
+    private SpooledDiff(File file) {
+        this.file = file;
+    }
+
+    public static SpooledDiff create() throws IOException {
+        File file = File.createTempFile("review-board", ".diff");
+        file.deleteOnExit();
+        return new SpooledDiff(file);
+    }
+
+    /**
+     * Stream the diff is written to, the counts are up to date once it is closed.
+     */
+    public OutputStream openStream() throws IOException {
+        return new CountingStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void delete() {
+        file.delete();
+    }
+
+    @Override
+    public String toString() {
+        return files + (files == 1 ? " file, " : " files, ") + StringUtil.formatFileSize(size);
+    }
+
+    /**
+     * Counts a file for every "+++ " line which follows a "--- " line, the header of a file in unified diffs.
+     */
+    private class CountingStream extends FilterOutputStream {
+        private final byte[] linePrefix = new byte[4];
+        private int linePrefixLength;
+        private boolean afterOldFileHeader;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for (int i = off; i < off + len; i++) count(b[i]);
+        }
+
+        private void count(byte b) {
+            size++;
+            if (b == '\n') {
+                afterOldFileHeader = isPrefix("--- ");
+                linePrefixLength = 0;
+            } else if (linePrefixLength < linePrefix.length) {
+                linePrefix[linePrefixLength++] = b;
+                if (linePrefixLength == linePrefix.length && afterOldFileHeader && isPrefix("+++ ")) files++;
+            }
+        }
+
+        private boolean isPrefix(String prefix) {
+            if (linePrefixLength < prefix.length()) return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (linePrefix[i] != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -36,6 +36,8 @@ import org.jetbrains.idea.svn.history.LogEntry;
 import org.jetbrains.idea.svn.history.LogEntryConsumer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -47,6 +49,12 @@ public class SvnDiffProvider extends BaseSvnClient implements IVcsDiffProvider {
 
     private static final Logger LOG = Logger.getInstance(SvnDiffProvider.class);
 
+    private final VirtualFile root;
+
+    public SvnDiffProvider(VirtualFile root) {
+        this.root = root;
+    }
+
     @Override
     public boolean isFromRevision(Project project, AnActionEvent action) throws VcsException {
         ChangeList[] data = action.getData(VcsDataKeys.CHANGE_LISTS);
@@ -58,20 +66,25 @@ public class SvnDiffProvider extends BaseSvnClient implements IVcsDiffProvider {
     }
 
     @Override
-    public String generateDiff(Project project, AnActionEvent action) throws VcsException {
-        String diffContent;
+    public void generateDiff(Project project, AnActionEvent action, OutputStream out) throws VcsException {
+        CommandExecutor commandExecutor;
         if (isFromRevision(project, action)) {
             ChangeList[] data = action.getData(VcsDataKeys.CHANGE_LISTS);
-            diffContent = fromRevisions(project, project.getBaseDir(), ((CommittedChangeList) data[data.length - 1]).getNumber(),
+            commandExecutor = fromRevisions(project, root, ((CommittedChangeList) data[data.length - 1]).getNumber(),
                     ((CommittedChangeList) data[0]).getNumber());
         } else {
             final Change[] changes = action.getData(VcsDataKeys.CHANGES);
-            diffContent = fromHead(project, project.getBaseDir(), changes);
+            commandExecutor = fromHead(project, root, changes);
+        }
+        // The svn plugin collects the output in memory, it is at least not copied into a string as well
+        try {
+            commandExecutor.getBinaryOutput().writeTo(out);
+        } catch (IOException e) {
+            throw new VcsException(e);
         }
-        return diffContent;
     }
 
-    private String fromRevisions(Project project, VirtualFile root, long beforeRevisionNumber,
+    private CommandExecutor fromRevisions(Project project, VirtualFile root, long beforeRevisionNumber,
                                  long afterRevisionNumber) throws VcsException {
         SvnVcs svnVcs = SvnVcs.getInstance(project);
         Target svnTarget = Target.on(new File(root.getPath()));
@@ -91,13 +104,11 @@ public class SvnDiffProvider extends BaseSvnClient implements IVcsDiffProvider {
         command.setTarget(svnTarget);
         command.put(parameters);
         LOG.info("Executing svn command : Parameters : " + parameters + " ,target :" + svnTarget);
-        CommandExecutor commandExecutor = newRuntime(svnVcs).runWithAuthenticationAttempt(command);
-        String output = commandExecutor.getBinaryOutput().toString();
-        return output;
+        return newRuntime(svnVcs).runWithAuthenticationAttempt(command);
     }
 
 
-    private String fromHead(Project project, VirtualFile root, Change[] changes) throws VcsException {
+    private CommandExecutor fromHead(Project project, VirtualFile root, Change[] changes) throws VcsException {
         //TODO: publish only selected changes attribute (need to handle deleted files)
         SvnVcs svnVcs = SvnVcs.getInstance(project);
 
@@ -118,8 +129,6 @@ public class SvnDiffProvider extends BaseSvnClient implements IVcsDiffProvider {
         command.setTarget(svnTarget);
         command.put(parameters);
         LOG.info("Executing svn command : Parameters : " + parameters + " ,target :" + svnTarget);
-        CommandExecutor commandExecutor = newRuntime(svnVcs).runWithAuthenticationAttempt(command);
-        String output = commandExecutor.getBinaryOutput().toString();
-        return output;
+        return newRuntime(svnVcs).runWithAuthenticationAttempt(command);
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.util.diff.Diff;
+import com.intellij.util.diff.FilesTooBigForDiffException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hunks of a unified diff between two versions of a file. The contents are handled as ISO-8859-1 so the lines are
+ * written out with exactly the bytes of the file, whatever its encoding.
+ */
+final class UnifiedDiff {
+    private static final int CONTEXT_LINES = 3;
+    private static final String NO_NEWLINE = "\\ No newline at end of file\n";
+
+    private final Lines before;
+    private final Lines after;
+
+    UnifiedDiff(byte[] before, byte[] after) {
+        this.before = new Lines(before);
+        this.after = new Lines(after);
+    }
+
+    void write(OutputStream out) throws IOException, FilesTooBigForDiffException {
+        Diff.Change change = Diff.buildChanges(before.keys, after.keys);
+        List<Diff.Change> hunk = new ArrayList<>();
+        for (; change != null; change = change.link) {
+            if (!hunk.isEmpty()) {
+                Diff.Change last = hunk.get(hunk.size() - 1);
+                if (change.line0 - (last.line0 + last.deleted) > 2 * CONTEXT_LINES) {
+                    writeHunk(hunk, out);
+                    hunk.clear();
+                }
+            }
+            hunk.add(change);
+        }
+        if (!hunk.isEmpty()) writeHunk(hunk, out);
+    }
+
+    private void writeHunk(List<Diff.Change> changes, OutputStream out) throws IOException {
+        Diff.Change first = changes.get(0);
+        Diff.Change last = changes.get(changes.size() - 1);
+        int start0 = Math.max(0, first.line0 - CONTEXT_LINES);
+        int start1 = first.line1 - (first.line0 - start0);
+        int end0 = Math.min(before.lines.length, last.line0 + last.deleted + CONTEXT_LINES);
+        int end1 = last.line1 + last.inserted + (end0 - (last.line0 + last.deleted));
+
+        write(out, "@@ -" + range(start0, end0 - start0) + " +" + range(start1, end1 - start1) + " @@\n");
+        int line0 = start0;
+        for (Diff.Change change : changes) {
+            for (; line0 < change.line0; line0++) {
+                before.write(out, ' ', line0);
+            }
+            for (int i = 0; i < change.deleted; i++) {
+                before.write(out, '-', change.line0 + i);
+            }
+            for (int i = 0; i < change.inserted; i++) {
+                after.write(out, '+', change.line1 + i);
+            }
+            line0 = change.line0 + change.deleted;
+        }
+        for (; line0 < end0; line0++) {
+            before.write(out, ' ', line0);
+        }
+    }
+
+    private static String range(int start, int length) {
+        if (length == 1) return String.valueOf(start + 1);
+        return (length == 0 ? start : start + 1) + "," + length;
+    }
+
+    static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Lines of a file without their line feed. The last line of a file not ending with a line feed is compared with a
+     * marker, so that adding or removing the final line feed shows up as a change.
+     */
+    private static class Lines {
+        final String[] lines;
+        final String[] keys;
+        final boolean missingNewline;
+
+        Lines(byte[] content) {
+            String text = new String(content, StandardCharsets.ISO_8859_1);
+            missingNewline = !text.isEmpty() && !text.endsWith("\n");
+            if (text.isEmpty()) {
+                lines = new String[0];
+            } else {
+                lines = (missingNewline ? text : text.substring(0, text.length() - 1)).split("\n", -1);
+            }
+            keys = lines.clone();
+            if (missingNewline) keys[keys.length - 1] += "\n";
+        }
+
+        void write(OutputStream out, char prefix, int line) throws IOException {
+            UnifiedDiff.write(out, prefix + lines[line] + "\n");
+            if (missingNewline && line == lines.length - 1) UnifiedDiff.write(out, NO_NEWLINE);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.diff;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import git4idea.GitVcs;
+
+public class VcsContentProviderFactory {
+    /**
+     * @return provider for the project's local repositories or null if none can serve contents
+     */
+    public static IVcsContentProvider getVcsContentProvider(Project project) {
+        GitVcs gitVcs = GitVcs.getInstance(project);
+        if (gitVcs != null) {
+            VirtualFile[] roots = ProjectLevelVcsManager.getInstance(project).getRootsUnderVcs(gitVcs);
+            if (roots.length > 0) return new GitContentProvider(project, roots);
+        }
+        // Svn working copies only keep the pristine BASE copy, older revisions always need the server
+        return null;
+    }
+}
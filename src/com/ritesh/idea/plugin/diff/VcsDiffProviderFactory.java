@@ -19,25 +19,57 @@ package com.ritesh.idea.plugin.diff;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.AbstractVcs;
 import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsRoot;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.ritesh.idea.plugin.state.Configuration;
 import git4idea.GitVcs;
 import org.jetbrains.idea.svn.SvnVcs;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author ritesh
  */
 public class VcsDiffProviderFactory {
     public static IVcsDiffProvider getVcsDiffProvider(Project project, Configuration configuration) {
-        AbstractVcs vcsFor = ProjectLevelVcsManager.getInstance(project).getVcsFor(project.getProjectFile());
+        ProjectLevelVcsManager vcsManager = ProjectLevelVcsManager.getInstance(project);
+        List<MultiRootDiffProvider.Root> roots = new ArrayList<>();
+        for (VcsRoot vcsRoot : vcsManager.getAllVcsRoots()) {
+            IVcsDiffProvider provider = getVcsDiffProvider(configuration, vcsRoot);
+            if (provider != null) {
+                roots.add(new MultiRootDiffProvider.Root(provider, vcsRoot.getPath(), vcsRoot.getVcs() instanceof SvnVcs));
+            }
+        }
+        if (roots.isEmpty()) {
+            if (configuration.useRbTools == Boolean.TRUE) {
+                return rbTools(configuration, vcsManager.getVcsFor(project.getProjectFile()), project.getBaseDir());
+            }
+            return null;
+        }
+        if (roots.size() == 1) return roots.get(0).provider;
+        return new MultiRootDiffProvider(roots);
+    }
+
+    private static IVcsDiffProvider getVcsDiffProvider(Configuration configuration, VcsRoot vcsRoot) {
         if (configuration.useRbTools == Boolean.TRUE) {
-            return new RbToolsDiffProvider(configuration.url, configuration.username, configuration.password,
-                    configuration.rbtPath, vcsFor);
+            // rbt is only run for what the in-process diff cannot do
+            IVcsDiffProvider rbTools = rbTools(configuration, vcsRoot.getVcs(), vcsRoot.getPath());
+            if (vcsRoot.getVcs() instanceof SvnVcs || vcsRoot.getVcs() instanceof GitVcs) {
+                return new InProcessDiffProvider(vcsRoot.getPath(), vcsRoot.getVcs() instanceof SvnVcs, rbTools);
+            }
+            return rbTools;
         }
-        if (vcsFor instanceof SvnVcs) {
-            return new SvnDiffProvider();
-        } else if (vcsFor instanceof GitVcs) {
-            return new GitDiffProvider();
+        if (vcsRoot.getVcs() instanceof SvnVcs) {
+            return new SvnDiffProvider(vcsRoot.getPath());
+        } else if (vcsRoot.getVcs() instanceof GitVcs) {
+            return new GitDiffProvider(vcsRoot.getPath());
         }
         return null;
     }
+
+    private static IVcsDiffProvider rbTools(Configuration configuration, AbstractVcs vcs, VirtualFile root) {
+        return new RbToolsDiffProvider(configuration.url, configuration.username, configuration.password,
+                configuration.rbtPath, vcs, root);
+    }
 }
@@ -20,7 +20,14 @@ package com.ritesh.idea.plugin.exception;
  * @author ritesh
  */
 public class UnexpectedResponseException extends RuntimeException {
-    public UnexpectedResponseException(String message, Throwable cause) {
+    private final int statusCode;
+
+    public UnexpectedResponseException(String message, int statusCode, Throwable cause) {
         super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
     }
 }
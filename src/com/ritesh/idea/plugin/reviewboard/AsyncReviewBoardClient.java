@@ -0,0 +1,386 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ritesh.idea.plugin.exception.UnexpectedResponseException;
+import com.ritesh.idea.plugin.reviewboard.model.RBComments;
+import com.ritesh.idea.plugin.reviewboard.model.RBCreateReview;
+import com.ritesh.idea.plugin.reviewboard.model.RBDiffComment;
+import com.ritesh.idea.plugin.reviewboard.model.RBDiffList;
+import com.ritesh.idea.plugin.reviewboard.model.RBFileDiff;
+import com.ritesh.idea.plugin.reviewboard.model.RBGroupList;
+import com.ritesh.idea.plugin.reviewboard.model.RBModel;
+import com.ritesh.idea.plugin.reviewboard.model.RBReplyList;
+import com.ritesh.idea.plugin.reviewboard.model.RBRepository;
+import com.ritesh.idea.plugin.reviewboard.model.RBReview;
+import com.ritesh.idea.plugin.reviewboard.model.RBReviewList;
+import com.ritesh.idea.plugin.reviewboard.model.RBReviewRequest;
+import com.ritesh.idea.plugin.reviewboard.model.RBReviewRequestList;
+import com.ritesh.idea.plugin.reviewboard.model.RBUserList;
+import org.apache.http.HttpStatus;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Asynchronous view of {@link ReviewBoardClient}. Every call returns at once with a future completed on a small
+ * bounded pool, so that dependent calls can be composed instead of parking a thread per request.
+ * Calls run under the progress indicator of the caller, cancelling it aborts their requests.
+ */
+public class AsyncReviewBoardClient {
+    private static final Logger LOG = Logger.getInstance(AsyncReviewBoardClient.class);
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_DELAY = 500;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final ReviewBoardClient client;
+    private final Executor executor;
+
+    public AsyncReviewBoardClient(ReviewBoardClient client, int maxThreads) {
+        this.client = client;
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Review Board requests", maxThreads);
+    }
+
+    public ReviewBoardClient getClient() {
+        return client;
+    }
+
+    private <T> CompletableFuture<T> async(Callable<T> call) {
+        return async(call, ProgressManager.getInstance().getProgressIndicator());
+    }
+
+    private <T> CompletableFuture<T> async(final Callable<T> call, final ProgressIndicator indicator) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isDone()) return;
+                Runnable request = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            future.complete(call.call());
+                        } catch (Throwable e) {
+                            future.completeExceptionally(e);
+                        }
+                    }
+                };
+                if (indicator != null) {
+                    ProgressManager.getInstance().executeProcessUnderProgress(request, indicator);
+                } else {
+                    request.run();
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs the call again after a growing delay while it fails with a transient error, which only covers failures
+     * where the server did not act on the request, so that it is safe for requests which are not idempotent.
+     */
+    private <T> CompletableFuture<T> retrying(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        retry(call, ProgressManager.getInstance().getProgressIndicator(), 1, result);
+        return result;
+    }
+
+    private <T> void retry(final Callable<T> call, final ProgressIndicator indicator, final int attempt,
+                           final CompletableFuture<T> result) {
+        async(call, indicator).whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable e) {
+                if (e == null) {
+                    result.complete(value);
+                } else if (attempt >= MAX_ATTEMPTS || !isTransient(e)
+                        || (indicator != null && indicator.isCanceled())) {
+                    result.completeExceptionally(e);
+                } else {
+                    long delay = RETRY_DELAY << (attempt - 1);
+                    LOG.info("Attempt " + attempt + " failed, retrying in " + delay + "ms : " + e);
+                    AppExecutorUtil.getAppScheduledExecutorService().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            retry(call, indicator, attempt + 1, result);
+                        }
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+    }
+
+    static boolean isTransient(Throwable e) {
+        // Checked first, connect timeouts are interrupted exceptions as well
+        if (e instanceof ConnectTimeoutException || e instanceof ConnectException) return true;
+        if (e instanceof UnexpectedResponseException) {
+            int statusCode = ((UnexpectedResponseException) e).getStatusCode();
+            return statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == SC_TOO_MANY_REQUESTS;
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the future, rethrowing the exception it failed with.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    public CompletableFuture<RBReviewRequestList> reviewRequestList(final String fromUser, final String toUser,
+                                                                    final String status, final String repositoryId,
+                                                                    final long start, final long count,
+                                                                    final Projection projection) {
+        return async(new Callable<RBReviewRequestList>() {
+            @Override
+            public RBReviewRequestList call() throws Exception {
+                return client.reviewRequestListApi(fromUser, toUser, status, repositoryId, start, count, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReviewRequest> reviewRequest(final String reviewRequestId, final Projection projection) {
+        return async(new Callable<RBReviewRequest>() {
+            @Override
+            public RBReviewRequest call() throws Exception {
+                return client.reviewRequestApi(reviewRequestId, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBDiffList> diffList(final String reviewRequestId) {
+        return async(new Callable<RBDiffList>() {
+            @Override
+            public RBDiffList call() throws Exception {
+                return client.diffListApi(reviewRequestId);
+            }
+        });
+    }
+
+    public CompletableFuture<RBFileDiff> fileDiff(final String reviewRequestId, final String revision) {
+        return async(new Callable<RBFileDiff>() {
+            @Override
+            public RBFileDiff call() throws Exception {
+                return client.fileDiffApi(reviewRequestId, revision);
+            }
+        });
+    }
+
+    public CompletableFuture<RBComments> diffCommentList(final String reviewRequestId, final String revision,
+                                                         final String fileId) {
+        return async(new Callable<RBComments>() {
+            @Override
+            public RBComments call() throws Exception {
+                return client.diffCommentListApi(reviewRequestId, revision, fileId);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReviewList> reviewList(final String reviewRequestId, final Projection projection) {
+        return async(new Callable<RBReviewList>() {
+            @Override
+            public RBReviewList call() throws Exception {
+                return client.reviewListApi(reviewRequestId, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBComments> diffCommentList(final String diffCommentsHref, final Projection projection) {
+        return async(new Callable<RBComments>() {
+            @Override
+            public RBComments call() throws Exception {
+                return client.diffCommentListApi(diffCommentsHref, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReplyList> replyList(final String repliesHref, final Projection projection) {
+        return async(new Callable<RBReplyList>() {
+            @Override
+            public RBReplyList call() throws Exception {
+                return client.replyListApi(repliesHref, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReview> draftReview(final String reviewRequestId) {
+        return async(new Callable<RBReview>() {
+            @Override
+            public RBReview call() throws Exception {
+                return client.draftReviewApi(reviewRequestId);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReview> review(final String reviewRequestId, final String reviewId) {
+        return async(new Callable<RBReview>() {
+            @Override
+            public RBReview call() throws Exception {
+                return client.reviewApi(reviewRequestId, reviewId);
+            }
+        });
+    }
+
+    public CompletableFuture<RBComments> reviewDiffCommentList(final String reviewRequestId, final String reviewId,
+                                                               final Projection projection) {
+        return async(new Callable<RBComments>() {
+            @Override
+            public RBComments call() throws Exception {
+                return client.reviewDiffCommentListApi(reviewRequestId, reviewId, projection);
+            }
+        });
+    }
+
+    public CompletableFuture<RBReview> createReview(final String reviewRequestId, final Boolean shipIt) {
+        return async(new Callable<RBReview>() {
+            @Override
+            public RBReview call() throws Exception {
+                return client.createReviewApi(reviewRequestId, shipIt);
+            }
+        });
+    }
+
+    public CompletableFuture<RBDiffComment> createDiffComment(final String reviewRequestId, final String reviewId,
+                                                              final String fileDiffId, final int firstLine,
+                                                              final int numLines, final String text,
+                                                              final boolean issueOpened) {
+        return retrying(new Callable<RBDiffComment>() {
+            @Override
+            public RBDiffComment call() throws Exception {
+                return client.createDiffComment(reviewRequestId, reviewId, fileDiffId, firstLine, numLines, text,
+                        issueOpened);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> updateReview(final String reviewRequestId, final String reviewId,
+                                                final boolean isPublic, final String bodyTop,
+                                                final String bodyBottom) {
+        return async(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                client.updateReviewApi(reviewRequestId, reviewId, isPublic, bodyTop, bodyBottom);
+                return null;
+            }
+        });
+    }
+
+    public CompletableFuture<RBRepository> repositories(final int count) {
+        return async(new Callable<RBRepository>() {
+            @Override
+            public RBRepository call() throws Exception {
+                return client.repositories(count);
+            }
+        });
+    }
+
+    public CompletableFuture<String> contents(final String href) {
+        return async(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return client.contents(href);
+            }
+        });
+    }
+
+    public CompletableFuture<String> patch(final String fileDiffHref) {
+        return async(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return client.patch(fileDiffHref);
+            }
+        });
+    }
+
+    public CompletableFuture<RBCreateReview> createReviewRequest(final String repositoryId) {
+        return async(new Callable<RBCreateReview>() {
+            @Override
+            public RBCreateReview call() throws Exception {
+                return client.createReviewRequestApi(repositoryId);
+            }
+        });
+    }
+
+    public CompletableFuture<RBModel> updateReviewRequestStatus(final String reviewRequestId, final String status) {
+        return async(new Callable<RBModel>() {
+            @Override
+            public RBModel call() throws Exception {
+                return client.updateReviewRequestStatus(reviewRequestId, status);
+            }
+        });
+    }
+
+    public CompletableFuture<RBModel> draftDiffUpload(final String reviewRequestId, final File diff,
+                                                      final String basedir) {
+        return async(new Callable<RBModel>() {
+            @Override
+            public RBModel call() throws Exception {
+                return client.draftDiffUploadApi(reviewRequestId, diff, basedir);
+            }
+        });
+    }
+
+    public CompletableFuture<RBModel> updateReviewRequest(final String reviewRequestId, final String description,
+                                                          final String summary, final String targetGroups,
+                                                          final String targetPeople, final boolean isPublic) {
+        return async(new Callable<RBModel>() {
+            @Override
+            public RBModel call() throws Exception {
+                return client.updateReviewApi(reviewRequestId, description, summary, targetGroups, targetPeople,
+                        isPublic);
+            }
+        });
+    }
+
+    public CompletableFuture<RBGroupList> groups(final String q, final int maxResults) {
+        return async(new Callable<RBGroupList>() {
+            @Override
+            public RBGroupList call() throws Exception {
+                return client.groupsApi(q, maxResults);
+            }
+        });
+    }
+
+    public CompletableFuture<RBUserList> users(final String q) {
+        return async(new Callable<RBUserList>() {
+            @Override
+            public RBUserList call() throws Exception {
+                return client.usersApi(q);
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Published comments of a review request and replies to them, indexed by file diff id and kept sorted by line.
+ */
+public class CommentIndex {
+    private final Map<String, List<Review.File.Comment>> comments = new HashMap<>();
+
+    void add(String fileDiffId, Review.File.Comment comment) {
+        List<Review.File.Comment> fileComments = comments.get(fileDiffId);
+        if (fileComments == null) comments.put(fileDiffId, fileComments = new ArrayList<>());
+        fileComments.add(comment);
+    }
+
+    void sort() {
+        for (List<Review.File.Comment> fileComments : comments.values()) {
+            Collections.sort(fileComments, new Comparator<Review.File.Comment>() {
+                @Override
+                public int compare(Review.File.Comment o1, Review.File.Comment o2) {
+                    return Integer.compare(o1.firstLine, o2.firstLine);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return comments of the file, in a new list which the caller may modify
+     */
+    public List<Review.File.Comment> comments(Review.File file) {
+        return comments(file, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return comments of the file which overlap the given lines
+     */
+    public List<Review.File.Comment> comments(Review.File file, int firstLine, int lastLine) {
+        List<Review.File.Comment> result = new ArrayList<>();
+        List<Review.File.Comment> fileComments = comments.get(file.fileId);
+        if (fileComments == null) return result;
+        for (Review.File.Comment comment : fileComments) {
+            if (comment.firstLine > lastLine) break;
+            if (comment.firstLine + Math.max(comment.numberOfLines, 1) - 1 < firstLine) continue;
+            comment.file = file;
+            result.add(comment);
+        }
+        return result;
+    }
+
+    public int count(String fileId) {
+        List<Review.File.Comment> fileComments = comments.get(fileId);
+        return fileComments == null ? 0 : fileComments.size();
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard;
+
+import com.google.gson.JsonParseException;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ritesh.idea.plugin.util.Json;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Append-only on-disk log of the unpublished comments of a review, so that they survive a crash or restart of the
+ * IDE. Every change of the comments on a file appends a record replacing the previous one of that file. Records are
+ * written on a background thread in the order they were made, and the log is rewritten with only the latest records
+ * once stale ones outnumber them.
+ */
+public class DraftCommentJournal {
+    private static final Logger LOG = Logger.getInstance(DraftCommentJournal.class);
+    private static final int COMPACT_THRESHOLD = 64;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Journals of all reviews share one writer, which keeps writes of each journal in order
+    private static final ExecutorService writer =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("Review Board draft journal", 1);
+
+    private final File file;
+    // Latest record of every file with comments
+    private final Map<String, Record> records = new LinkedHashMap<>();
+    private int appended;
+
+    private static class Record {
+        String fileId;
+        Entry[] comments;
+    }
+
+    private static class Entry {
+        int firstLine;
+        int numberOfLines;
+        String text;
+        boolean issueOpened;
+    }
+
+    public DraftCommentJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the journal back. A record torn by a crash ends the log, records before it are kept and the log is
+     * rewritten without it so that later records are not appended behind it.
+     *
+     * @return unpublished comments by file id, of the given files only
+     */
+    public Map<String, List<Review.File.Comment>> restore(List<Review.File> files)
+            throws InterruptedException, ExecutionException {
+        // Read on the writer, behind pending writes and clears of the journal
+        writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }).get();
+
+        Map<String, Review.File> filesById = new HashMap<>();
+        for (Review.File reviewFile : files) filesById.put(reviewFile.fileId, reviewFile);
+        Map<String, List<Review.File.Comment>> result = new HashMap<>();
+        synchronized (this) {
+            for (Record record : records.values()) {
+                Review.File reviewFile = filesById.get(record.fileId);
+                if (reviewFile == null) {
+                    LOG.info("Dropping draft comments of file " + record.fileId + ", it is not part of the latest diff");
+                    continue;
+                }
+                List<Review.File.Comment> comments = new ArrayList<>();
+                for (Entry entry : record.comments) {
+                    Review.File.Comment comment = new Review.File.Comment();
+                    comment.firstLine = entry.firstLine;
+                    comment.numberOfLines = entry.numberOfLines;
+                    comment.text = entry.text;
+                    comment.issueOpened = entry.issueOpened;
+                    comment.file = reviewFile;
+                    comments.add(comment);
+                }
+                result.put(record.fileId, comments);
+            }
+        }
+        return result;
+    }
+
+    private synchronized void read() {
+        records.clear();
+        appended = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record = Json.gson().fromJson(line, Record.class);
+                if (record == null || record.fileId == null) break;
+                apply(record);
+            }
+        } catch (NoSuchFileException ignored) {
+        } catch (JsonParseException e) {
+            LOG.info("Draft journal " + file + " ends with an incomplete record", e);
+            compact();
+        } catch (IOException e) {
+            LOG.warn("Unable to read draft journal " + file, e);
+        }
+    }
+
+    /**
+     * Replaces the comments of the file in the journal, without waiting for the write.
+     */
+    public void update(String fileId, List<Review.File.Comment> comments) {
+        final Record record = new Record();
+        record.fileId = fileId;
+        record.comments = new Entry[comments.size()];
+        for (int i = 0; i < comments.size(); i++) {
+            Review.File.Comment comment = comments.get(i);
+            Entry entry = record.comments[i] = new Entry();
+            entry.firstLine = comment.firstLine;
+            entry.numberOfLines = comment.numberOfLines;
+            entry.text = comment.text;
+            entry.issueOpened = comment.issueOpened;
+        }
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(record);
+            }
+        });
+    }
+
+    /**
+     * Drops the journal once its comments are published or discarded.
+     */
+    public void clear() {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DraftCommentJournal.this) {
+                    records.clear();
+                    appended = 0;
+                    if (file.exists() && !file.delete()) LOG.warn("Unable to delete draft journal " + file);
+                }
+            }
+        });
+    }
+
+    private void apply(Record record) {
+        if (record.comments == null || record.comments.length == 0) {
+            records.remove(record.fileId);
+        } else {
+            records.put(record.fileId, record);
+        }
+        appended++;
+    }
+
+    private synchronized void append(Record record) {
+        apply(record);
+        if (appended > COMPACT_THRESHOLD && appended > 2 * records.size() && compact()) return;
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.warn("Unable to create draft journal directory " + directory);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(channel, record);
+            channel.force(false);
+        } catch (IOException e) {
+            LOG.warn("Unable to write draft journal " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites the journal with the latest records, replacing it atomically so that a crash keeps either log.
+     */
+    private boolean compact() {
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Record record : records.values()) write(channel, record);
+            channel.force(false);
+        } catch (IOException e) {
+            LOG.warn("Unable to compact draft journal " + file, e);
+            tempFile.delete();
+            return false;
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            appended = records.size();
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Unable to compact draft journal " + file, e);
+            tempFile.delete();
+            return false;
+        }
+    }
+
+    private static void write(FileChannel channel, Record record) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(Json.gson().toJson(record) + '\n');
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard;
+
+import com.ritesh.idea.plugin.util.HttpRequestBuilder;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Fields and links of a resource which a caller needs, sent as Review Board's only-fields and only-links so that
+ * the server leaves everything else out of the payload.
+ */
+public class Projection {
+    private final String[] fields;
+    private final String[] links;
+
+    private Projection(String[] fields, String[] links) {
+        this.fields = fields;
+        this.links = links;
+    }
+
+    public static Projection fields(String... fields) {
+        return new Projection(fields, new String[0]);
+    }
+
+    public Projection links(String... links) {
+        return new Projection(fields, links);
+    }
+
+    /**
+     * An empty only-links asks for no links at all, which is what the projection means when it lists none.
+     */
+    void apply(HttpRequestBuilder requestBuilder) {
+        requestBuilder.queryString("only-fields", StringUtils.join(fields, ','));
+        requestBuilder.queryString("only-links", StringUtils.join(links, ','));
+    }
+
+    @Override
+    public String toString() {
+        return "Projection{" +
+                "fields=" + StringUtils.join(fields, ',') +
+                ", links=" + StringUtils.join(links, ',') +
+                '}';
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard;
+
+import com.google.gson.JsonParseException;
+import com.intellij.openapi.diagnostic.Logger;
+import com.ritesh.idea.plugin.reviewboard.model.RBComments;
+import com.ritesh.idea.plugin.util.Json;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Progress of publishing a review: the draft review the comments go to and the server id of every comment already
+ * posted to it. Saved after each step and reconciled with the draft on the server when publishing again after a
+ * failure, so that it resumes where it stopped instead of posting comments twice.
+ */
+public class PublishCheckpoint {
+    private static final Logger LOG = Logger.getInstance(PublishCheckpoint.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static class State {
+        String reviewId;
+        Map<String, String> comments = new HashMap<>();
+        // Comments of earlier reviews which were published before all comments were posted
+        Set<String> published = new HashSet<>();
+    }
+
+    private final File file;
+    private State state;
+
+    private PublishCheckpoint(File file, State state) {
+        this.file = file;
+        this.state = state;
+    }
+
+    public static PublishCheckpoint load(File file) {
+        State state = null;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            state = Json.gson().fromJson(reader, State.class);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException | JsonParseException e) {
+            LOG.warn("Unable to read publish checkpoint " + file, e);
+        }
+        if (state == null || state.comments == null) state = new State();
+        if (state.published == null) state.published = new HashSet<>();
+        return new PublishCheckpoint(file, state);
+    }
+
+    /**
+     * Keys of the comments, identifying them by file diff, lines and text. Repeated comments are told apart by their
+     * occurrence.
+     */
+    public static String[] keys(List<Review.File.Comment> comments) {
+        String[] keys = new String[comments.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Review.File.Comment comment = comments.get(i);
+            keys[i] = key(comment.file.fileId, comment.firstLine, comment.numberOfLines, comment.text);
+        }
+        return withOccurrences(keys);
+    }
+
+    /**
+     * Keys of comments found on the server, matching {@link #keys(List)} of the same comments.
+     */
+    public static String[] keys(RBComments.DiffComment[] comments, String[] fileIds) {
+        String[] keys = new String[comments.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(fileIds[i], comments[i].first_line, comments[i].num_lines, comments[i].text);
+        }
+        return withOccurrences(keys);
+    }
+
+    private static String key(String fileId, int firstLine, int numberOfLines, String text) {
+        return DigestUtils.sha1Hex(fileId + '\n' + firstLine + '\n' + numberOfLines + '\n' + text);
+    }
+
+    private static String[] withOccurrences(String[] keys) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            Integer occurrence = occurrences.get(keys[i]);
+            occurrences.put(keys[i], occurrence = occurrence == null ? 0 : occurrence + 1);
+            keys[i] = keys[i] + '#' + occurrence;
+        }
+        return keys;
+    }
+
+    public synchronized String getReviewId() {
+        return state.reviewId;
+    }
+
+    /**
+     * Records the draft review comments are posted to, forgetting posted comments if it is not the one they were
+     * posted to before.
+     */
+    public synchronized void reviewCreated(String reviewId) {
+        if (reviewId.equals(state.reviewId)) return;
+        Set<String> published = state.published;
+        state = new State();
+        state.reviewId = reviewId;
+        state.published = published;
+        save();
+    }
+
+    /**
+     * The review was made public, e.g. on the web, before all comments were posted to it. Its comments are kept as
+     * published and the remaining ones go to a new draft review.
+     */
+    public synchronized void reviewPublished() {
+        state.published.addAll(state.comments.keySet());
+        state.comments = new HashMap<>();
+        state.reviewId = null;
+        save();
+    }
+
+    /**
+     * @return whether the comment is on the draft review or was published already
+     */
+    public synchronized boolean isPosted(String key) {
+        return state.comments.containsKey(key) || state.published.contains(key);
+    }
+
+    public synchronized boolean isPosted(String[] keys) {
+        for (String key : keys) {
+            if (!isPosted(key)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the posted comments with the ones actually on the draft review. A comment whose response was lost is
+     * on the server without being recorded here, and one deleted from the draft meanwhile has to be posted again.
+     */
+    public synchronized void commentsOnServer(Map<String, String> comments) {
+        state.comments = new HashMap<>(comments);
+        save();
+    }
+
+    public synchronized void commentPosted(String key, String commentId) {
+        state.comments.put(key, commentId);
+        save();
+    }
+
+    public synchronized int getPostedComments() {
+        return state.comments.size() + state.published.size();
+    }
+
+    /**
+     * Drops the checkpoint once the review is published.
+     */
+    public synchronized void delete() {
+        state = new State();
+        if (file.exists() && !file.delete()) LOG.warn("Unable to delete publish checkpoint " + file);
+    }
+
+    private void save() {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.warn("Unable to create publish checkpoint directory " + directory);
+            return;
+        }
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        try {
+            Files.write(tempFile.toPath(), Json.gson().toJson(state).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Unable to save publish checkpoint " + file, e);
+            tempFile.delete();
+        }
+    }
+}
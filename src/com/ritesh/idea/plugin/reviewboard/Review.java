@@ -39,6 +39,10 @@ public class Review {
         public String dstFileName;
         public String srcFileContents;
         public String dstFileContents;
+        public String srcFileHref;
+        public String dstFileHref;
+        public String patchHref;
+        public volatile boolean contentsLoaded;
         public String sourceRevision;
         public String revision;
 
@@ -17,28 +17,42 @@
 package com.ritesh.idea.plugin.reviewboard;
 
 import com.google.common.io.CharStreams;
-import com.intellij.openapi.vfs.CharsetToolkit;
-import com.intellij.util.net.ssl.CertificateManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.ritesh.idea.plugin.exception.InvalidCredentialException;
 import com.ritesh.idea.plugin.exception.ReviewBoardServerException;
+import com.ritesh.idea.plugin.exception.UnexpectedResponseException;
 import com.ritesh.idea.plugin.reviewboard.model.*;
+import com.ritesh.idea.plugin.util.AdaptiveConcurrencyLimiter;
+import com.ritesh.idea.plugin.util.Http2Transport;
+import com.ritesh.idea.plugin.util.HttpClientPool;
 import com.ritesh.idea.plugin.util.HttpRequestBuilder;
+import com.ritesh.idea.plugin.util.HttpResponseCache;
+import com.ritesh.idea.plugin.util.HttpTransport;
+import com.ritesh.idea.plugin.util.Json;
+import com.ritesh.idea.plugin.util.SingleFlight;
+import com.ritesh.idea.plugin.util.TransferStatistics;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.pool.PoolStats;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ritesh
  */
-public class ReviewBoardClient {
+public class ReviewBoardClient implements Closeable {
+    private static final Logger LOG = Logger.getInstance(ReviewBoardClient.class);
 
     private static final String API = "api";
     private static final String REVIEW_REQUESTS = "review-requests";
@@ -53,15 +67,130 @@ public class ReviewBoardClient {
     private static final String USERS = "users";
 
     private static final String ERRORCODE_LOGINFAILED = "104";
+    private static final String ERRORCODE_DOES_NOT_EXIST = "100";
+    private static final String PATCH_MIMETYPE = "text/x-patch";
+    // Largest page size accepted by Review Board
+    private static final int MAX_RESULTS = 200;
+
+    static {
+        Json.register(RBModel.class, RBReviewRequestList.class, RBReviewRequest.class, RBDiffList.class,
+                RBFileDiff.class, RBComments.class, RBReview.class, RBRepository.class, RBCreateReview.class,
+                RBGroupList.class, RBUserList.class, RBReviewList.class, RBDiffComment.class);
+    }
+
+    /**
+     * File fetches are limited per server, whichever project or client they come from.
+     */
+    private static final ConcurrentMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
 
     private final String url;
     private final String userName;
     private final String password;
+    private final HttpClientPool clientPool;
+    private final HttpTransport transport;
+    private final HttpResponseCache responseCache = new HttpResponseCache(HttpResponseCache.DEFAULT_MAX_SIZE);
+    private final SingleFlight<String, HttpRequestBuilder.SharedResponse> inFlight = new SingleFlight<>();
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+    private final AdaptiveConcurrencyLimiter limiter;
 
     public ReviewBoardClient(String url, String userName, String password) {
+        this(url, userName, password, HttpClientPool.DEFAULT_MAX_PER_ROUTE, HttpClientPool.DEFAULT_MAX_PER_ROUTE,
+                HttpTransport.HTTP_1_1);
+    }
+
+    public ReviewBoardClient(String url, String userName, String password, int maxConnectionsPerRoute,
+                             int maxConcurrentRequests, String transport) {
         this.url = url;
         this.userName = userName;
         this.password = password;
+        this.clientPool = new HttpClientPool(maxConnectionsPerRoute);
+        this.transport = HttpTransport.HTTP_2.equals(transport) ? http2Transport(clientPool) : clientPool;
+        this.limiter = limiter(url, Math.min(maxConcurrentRequests, maxConnectionsPerRoute));
+    }
+
+    private static HttpTransport http2Transport(HttpClientPool fallback) {
+        if (!Http2Transport.isSupported()) {
+            LOG.info("HTTP/2 transport needs java 11 or later, using HTTP/1.1");
+            return fallback;
+        }
+        try {
+            return new Http2Transport(fallback);
+        } catch (ReflectiveOperationException e) {
+            LOG.warn("Unable to create HTTP/2 transport, using HTTP/1.1", e);
+            return fallback;
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(String url, int maxLimit) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(url);
+        if (limiter == null) {
+            AdaptiveConcurrencyLimiter existing = limiters.putIfAbsent(url, limiter = new AdaptiveConcurrencyLimiter(maxLimit));
+            if (existing != null) limiter = existing;
+        }
+        limiter.setMaxLimit(maxLimit);
+        return limiter;
+    }
+
+    /**
+     * GET which joins an identical request already in flight, e.g. a prefetch and the diff window asking for the
+     * same file.
+     */
+    private HttpRequestBuilder get(String url) throws URISyntaxException {
+        return HttpRequestBuilder.get(url).client(transport).statistics(transferStatistics)
+                .coalesce(inFlight, userName);
+    }
+
+    /**
+     * GET for resources that can be revalidated with their ETag instead of being downloaded again.
+     */
+    private HttpRequestBuilder cachedGet(String url) throws URISyntaxException {
+        return get(url).cache(responseCache, userName);
+    }
+
+    private HttpRequestBuilder post(String url) throws URISyntaxException {
+        return HttpRequestBuilder.post(url).client(transport).statistics(transferStatistics);
+    }
+
+    private HttpRequestBuilder put(String url) throws URISyntaxException {
+        return HttpRequestBuilder.put(url).client(transport).statistics(transferStatistics);
+    }
+
+    public PoolStats getPoolStats() {
+        return clientPool.getStats();
+    }
+
+    public HttpResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @return number of GET requests which were served by an identical request already in flight
+     */
+    public long getCoalescedRequests() {
+        return inFlight.getDuplicates();
+    }
+
+    public TransferStatistics getTransferStatistics() {
+        return transferStatistics;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        responseCache.clear();
+        transport.close();
+        clientPool.close();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUserName() {
+        return userName;
     }
 
     private String getAuthorizationHeader() {
@@ -87,10 +216,20 @@ public class ReviewBoardClient {
 
     public RBReviewRequestList reviewRequestListApi(String fromUser, String toUser, String status,
                                                     String repositoryId, long start, long count) throws URISyntaxException, IOException {
-        HttpRequestBuilder requestBuilder = HttpRequestBuilder.get(url).route(API).route(REVIEW_REQUESTS).slash();
+        return reviewRequestListApi(fromUser, toUser, status, repositoryId, start, count, null);
+    }
+
+    /**
+     * @param projection fields and links to fetch of each review request, everything if null
+     */
+    public RBReviewRequestList reviewRequestListApi(String fromUser, String toUser, String status,
+                                                    String repositoryId, long start, long count,
+                                                    Projection projection) throws URISyntaxException, IOException {
+        HttpRequestBuilder requestBuilder = cachedGet(url).route(API).route(REVIEW_REQUESTS).slash();
         if (toUser != null) requestBuilder.queryString("to-users", toUser);
         if (fromUser != null) requestBuilder.queryString("from-user", fromUser);
         if (repositoryId != null) requestBuilder.queryString("repository", repositoryId);
+        if (projection != null) projection.apply(requestBuilder);
 
         RBReviewRequestList result = requestBuilder.queryString("start", String.valueOf(start))
                 .queryString("max-results", String.valueOf(count))
@@ -100,22 +239,53 @@ public class ReviewBoardClient {
         return checkSuccess(result);
     }
 
+    public RBReviewRequest reviewRequestApi(String reviewRequestId, Projection projection) throws URISyntaxException, IOException {
+        HttpRequestBuilder requestBuilder = cachedGet(url).route(API).route(REVIEW_REQUESTS)
+                .route(reviewRequestId).slash();
+        if (projection != null) projection.apply(requestBuilder);
+        RBReviewRequest result = requestBuilder.header(AUTHORIZATION, getAuthorizationHeader())
+                .asJson(RBReviewRequest.class);
+        return checkSuccess(result);
+    }
+
+    /**
+     * Lists diffs asking for their files to be expanded, so that servers which embed them answer in one request.
+     */
     public RBDiffList diffListApi(String reviewRequestId) throws URISyntaxException, IOException {
-        RBDiffList result = HttpRequestBuilder.get(url).route(API).route(REVIEW_REQUESTS).route(reviewRequestId)
-                .route(DIFFS).slash().header(AUTHORIZATION, getAuthorizationHeader()).asJson(RBDiffList.class);
+        RBDiffList result = cachedGet(url).route(API).route(REVIEW_REQUESTS).route(reviewRequestId)
+                .route(DIFFS).slash()
+                .queryString("expand", FILES)
+                .queryString("max-results", MAX_RESULTS)
+                .header(AUTHORIZATION, getAuthorizationHeader()).asJson(RBDiffList.class);
         return checkSuccess(result);
     }
 
+    /**
+     * Lists all files of the diff, following pages of the largest size the server allows.
+     */
     public RBFileDiff fileDiffApi(String reviewRequestId, String revision) throws URISyntaxException, IOException {
-        RBFileDiff result = HttpRequestBuilder.get(url).route(API).route(REVIEW_REQUESTS)
-                .route(reviewRequestId).route(DIFFS).route(revision).route(FILES).slash()
-                .header(AUTHORIZATION, getAuthorizationHeader())
-                .asJson(RBFileDiff.class);
-        return checkSuccess(result);
+        RBFileDiff result = null;
+        RBFileDiff page;
+        int start = 0;
+        do {
+            page = checkSuccess(cachedGet(url).route(API).route(REVIEW_REQUESTS)
+                    .route(reviewRequestId).route(DIFFS).route(revision).route(FILES).slash()
+                    .queryString("start", start)
+                    .queryString("max-results", MAX_RESULTS)
+                    .header(AUTHORIZATION, getAuthorizationHeader())
+                    .asJson(RBFileDiff.class));
+            if (result == null) {
+                result = page;
+            } else {
+                result.files = (RBFileDiff.File[]) ArrayUtils.addAll(result.files, page.files);
+            }
+            start += page.files.length;
+        } while (page.files.length > 0 && start < page.total_results);
+        return result;
     }
 
     public RBComments diffCommentListApi(String reviewRequestId, String revision, String fileId) throws URISyntaxException, IOException {
-        RBComments result = HttpRequestBuilder.get(url).route(API).route(REVIEW_REQUESTS)
+        RBComments result = cachedGet(url).limit(limiter).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(DIFFS).route(revision).route(FILES).route(fileId)
                 .route(DIFF_COMMENTS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
@@ -123,8 +293,118 @@ public class ReviewBoardClient {
         return checkSuccess(result);
     }
 
+    /**
+     * Lists all published reviews of the review request, following pages of the largest size the server allows.
+     */
+    public RBReviewList reviewListApi(String reviewRequestId, Projection projection) throws URISyntaxException, IOException {
+        RBReviewList result = null;
+        RBReviewList page;
+        int start = 0;
+        do {
+            HttpRequestBuilder requestBuilder = cachedGet(url).route(API).route(REVIEW_REQUESTS)
+                    .route(reviewRequestId).route(REVIEWS).slash()
+                    .queryString("start", start)
+                    .queryString("max-results", MAX_RESULTS);
+            if (projection != null) projection.apply(requestBuilder);
+            page = checkSuccess(requestBuilder.header(AUTHORIZATION, getAuthorizationHeader())
+                    .asJson(RBReviewList.class));
+            if (result == null) {
+                result = page;
+            } else {
+                result.reviews = (RBReviewList.Review[]) ArrayUtils.addAll(result.reviews, page.reviews);
+            }
+            start += page.reviews.length;
+        } while (page.reviews.length > 0 && start < page.total_results);
+        return result;
+    }
+
+    /**
+     * Lists all diff comments of a review, given the href of its diff comment list.
+     */
+    public RBComments diffCommentListApi(String diffCommentsHref, Projection projection) throws URISyntaxException, IOException {
+        RBComments result = null;
+        RBComments page;
+        int start = 0;
+        do {
+            HttpRequestBuilder requestBuilder = cachedGet(diffCommentsHref).limit(limiter)
+                    .queryString("start", start)
+                    .queryString("max-results", MAX_RESULTS);
+            if (projection != null) projection.apply(requestBuilder);
+            page = checkSuccess(requestBuilder.header(AUTHORIZATION, getAuthorizationHeader())
+                    .asJson(RBComments.class));
+            if (result == null) {
+                result = page;
+            } else {
+                result.diff_comments = (RBComments.DiffComment[]) ArrayUtils.addAll(result.diff_comments,
+                        page.diff_comments);
+            }
+            start += page.diff_comments.length;
+        } while (page.diff_comments.length > 0 && start < page.total_results);
+        return result;
+    }
+
+    /**
+     * Lists all published replies to a review, given the href of its reply list.
+     */
+    public RBReplyList replyListApi(String repliesHref, Projection projection) throws URISyntaxException, IOException {
+        RBReplyList result = null;
+        RBReplyList page;
+        int start = 0;
+        do {
+            HttpRequestBuilder requestBuilder = cachedGet(repliesHref).limit(limiter)
+                    .queryString("start", start)
+                    .queryString("max-results", MAX_RESULTS);
+            if (projection != null) projection.apply(requestBuilder);
+            page = checkSuccess(requestBuilder.header(AUTHORIZATION, getAuthorizationHeader())
+                    .asJson(RBReplyList.class));
+            if (result == null) {
+                result = page;
+            } else {
+                result.replies = (RBReplyList.Reply[]) ArrayUtils.addAll(result.replies, page.replies);
+            }
+            start += page.replies.length;
+        } while (page.replies.length > 0 && start < page.total_results);
+        return result;
+    }
+
+    /**
+     * @return draft review of the user on the review request, null if there is none
+     */
+    public RBReview draftReviewApi(String reviewRequestId) throws URISyntaxException, IOException {
+        RBReview result = get(url).route(API).route(REVIEW_REQUESTS)
+                .route(reviewRequestId).route(REVIEWS).route(DRAFT).slash()
+                .queryString("only-fields", "id")
+                .header(AUTHORIZATION, getAuthorizationHeader())
+                .asJson(RBReview.class);
+        if (result.err != null && ERRORCODE_DOES_NOT_EXIST.equals(result.err.code)) return null;
+        return checkSuccess(result);
+    }
+
+    /**
+     * @return review with its id and whether it is public, null if it does not exist
+     */
+    public RBReview reviewApi(String reviewRequestId, String reviewId) throws URISyntaxException, IOException {
+        RBReview result = get(url).route(API).route(REVIEW_REQUESTS)
+                .route(reviewRequestId).route(REVIEWS).route(reviewId).slash()
+                .queryString("only-fields", "id,public")
+                .header(AUTHORIZATION, getAuthorizationHeader())
+                .asJson(RBReview.class);
+        if (result.err != null && ERRORCODE_DOES_NOT_EXIST.equals(result.err.code)) return null;
+        return checkSuccess(result);
+    }
+
+    /**
+     * Lists all diff comments of a review, a draft review of the user included.
+     */
+    public RBComments reviewDiffCommentListApi(String reviewRequestId, String reviewId, Projection projection)
+            throws URISyntaxException, IOException {
+        String href = get(url).route(API).route(REVIEW_REQUESTS).route(reviewRequestId)
+                .route(REVIEWS).route(reviewId).route(DIFF_COMMENTS).slash().uri().toString();
+        return diffCommentListApi(href, projection);
+    }
+
     public RBReview createReviewApi(String reviewRequestId, Boolean shipIt) throws URISyntaxException, IOException {
-        HttpRequestBuilder requestBuilder = HttpRequestBuilder.post(url).route(API).route(REVIEW_REQUESTS)
+        HttpRequestBuilder requestBuilder = post(url).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(REVIEWS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader());
         if (shipIt != null) requestBuilder.field("ship_it", shipIt);
@@ -133,16 +413,16 @@ public class ReviewBoardClient {
     }
 
     public RBRepository repositories(int count) throws URISyntaxException, IOException {
-        RBRepository result = HttpRequestBuilder.get(url).route(API).route(REPOSITORIES).slash()
+        RBRepository result = cachedGet(url).route(API).route(REPOSITORIES).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .queryString("max-results", count)
                 .asJson(RBRepository.class);
         return checkSuccess(result);
     }
 
-    public void createDiffComment(String reviewRequestId, String reviewId, String filediff_id,
-                                  int first_line, int num_lines, String text, boolean issue_opened) throws URISyntaxException, IOException {
-        RBModel result = HttpRequestBuilder.post(url).route(API).route(REVIEW_REQUESTS)
+    public RBDiffComment createDiffComment(String reviewRequestId, String reviewId, String filediff_id,
+                                           int first_line, int num_lines, String text, boolean issue_opened) throws URISyntaxException, IOException {
+        RBDiffComment result = post(url).limit(limiter).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(REVIEWS).route(reviewId).route(DIFF_COMMENTS).slash()
                 .field("filediff_id", filediff_id)
                 .field("first_line", first_line)
@@ -150,13 +430,13 @@ public class ReviewBoardClient {
                 .field("issue_opened", issue_opened)
                 .field("text", text)
                 .header(AUTHORIZATION, getAuthorizationHeader())
-                .asJson(RBModel.class);
-        checkSuccess(result);
+                .asJson(RBDiffComment.class);
+        return checkSuccess(result);
     }
 
     public void updateReviewApi(String reviewRequestId, String reviewId, boolean isPublic,
                                 String body_top, String body_bottom) throws URISyntaxException, IOException {
-        HttpRequestBuilder put = HttpRequestBuilder.put(url);
+        HttpRequestBuilder put = put(url);
         put.route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(REVIEWS).route(reviewId).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
@@ -169,25 +449,54 @@ public class ReviewBoardClient {
 
     public String contents(String href) {
         try {
-            HttpRequestBase request = HttpRequestBuilder.get(href)
+            return get(href).limit(limiter)
                     .header(AUTHORIZATION, getAuthorizationHeader())
-                    .request();
-            try (CloseableHttpClient client = HttpClientBuilder.create().setSslcontext(CertificateManager.getInstance().getSslContext()).build()) {
-                CloseableHttpResponse response = client.execute(request);
-
-                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_FOUND) {
-                    return null;
-                } else {
-                    return CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
-                }
-            }
-        } catch (Exception e) {
+                    .execute(new ResponseHandler<String>() {
+                        @Override
+                        public String handleResponse(HttpResponse response) throws IOException {
+                            int statusCode = response.getStatusLine().getStatusCode();
+                            if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                                return null;
+                            } else if (statusCode < 200 || statusCode >= 300) {
+                                // An error page is not the file, it must neither be shown nor cached
+                                throw new UnexpectedResponseException("Status: " + response.getStatusLine(),
+                                        statusCode, null);
+                            } else {
+                                return CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
+                            }
+                        }
+                    });
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Fetches the unified diff of a single file diff resource.
+     *
+     * @return patch or null if server did not provide one
+     */
+    public String patch(String fileDiffHref) {
+        try {
+            return get(fileDiffHref).limit(limiter)
+                    .header(AUTHORIZATION, getAuthorizationHeader())
+                    .header(HttpHeaders.ACCEPT, PATCH_MIMETYPE)
+                    .execute(new ResponseHandler<String>() {
+                        @Override
+                        public String handleResponse(HttpResponse response) throws IOException {
+                            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                                return null;
+                            }
+                            return CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
+                        }
+                    });
+        } catch (IOException | URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
     public RBCreateReview createReviewRequestApi(String repositoryId) throws URISyntaxException, IOException {
-        RBCreateReview result = HttpRequestBuilder.post(url).route(API).route(REVIEW_REQUESTS).slash()
+        RBCreateReview result = post(url).route(API).route(REVIEW_REQUESTS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .field("repository", repositoryId)
                 .asJson(RBCreateReview.class);
@@ -196,7 +505,7 @@ public class ReviewBoardClient {
 
 
     public RBModel updateReviewRequestStatus(String reviewRequestId, String status) throws URISyntaxException, IOException {
-        RBModel result = HttpRequestBuilder.put(url).route(API).route(REVIEW_REQUESTS)
+        RBModel result = put(url).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .field("status", status)
@@ -204,18 +513,21 @@ public class ReviewBoardClient {
         return checkSuccess(result);
     }
 
-    public RBModel draftDiffUploadApi(String reviewRequestId, String content, String basedir) throws URISyntaxException, IOException {
-        RBModel model = HttpRequestBuilder.post(url).route(API).route(REVIEW_REQUESTS)
+    /**
+     * Uploads the diff from a file, streamed into the request so that large diffs are never held in memory.
+     */
+    public RBModel draftDiffUploadApi(String reviewRequestId, File diff, String basedir) throws URISyntaxException, IOException {
+        RBModel model = post(url).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(DIFFS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .field("basedir", basedir)
-                .file("path", "git.diff", content.getBytes(CharsetToolkit.UTF8_CHARSET))
+                .file("path", "git.diff", diff)
                 .asJson(RBModel.class);
         return checkSuccess(model);
     }
 
     public RBGroupList groupsApi(String q, int maxResults) throws URISyntaxException, IOException {
-        RBGroupList result = HttpRequestBuilder.get(url).route(API).route(GROUPS).slash()
+        RBGroupList result = get(url).route(API).route(GROUPS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .queryString("q", q)
                 .queryString("max-results", maxResults)
@@ -224,7 +536,7 @@ public class ReviewBoardClient {
     }
 
     public RBUserList usersApi(String q) throws URISyntaxException, IOException {
-        RBUserList result = HttpRequestBuilder.get(url).route(API).route(USERS).slash()
+        RBUserList result = get(url).route(API).route(USERS).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .queryString("q", q)
                 .asJson(RBUserList.class);
@@ -234,7 +546,7 @@ public class ReviewBoardClient {
 
     public RBModel updateReviewApi(String reviewRequestId, String description, String summary, String targetGroups,
                                    String targetPeople, boolean isPublic) throws URISyntaxException, IOException {
-        RBModel model = HttpRequestBuilder.post(url).route(API).route(REVIEW_REQUESTS)
+        RBModel model = post(url).route(API).route(REVIEW_REQUESTS)
                 .route(reviewRequestId).route(DRAFT).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader())
                 .field("summary", summary)
@@ -247,7 +559,7 @@ public class ReviewBoardClient {
     }
 
     public RBModel testConnection(String url, String username, String password) throws URISyntaxException, IOException {
-        RBModel model = HttpRequestBuilder.get(url).route(API).slash()
+        RBModel model = HttpRequestBuilder.get(url).client(clientPool).route(API).slash()
                 .header(AUTHORIZATION, getAuthorizationHeader(username, password)).asJson(RBModel.class);
         return checkSuccess(model);
     }
@@ -19,59 +19,123 @@ package com.ritesh.idea.plugin.reviewboard;
 import com.intellij.credentialStore.CredentialAttributes;
 import com.intellij.credentialStore.Credentials;
 import com.intellij.ide.passwordSafe.PasswordSafe;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.vcs.VcsException;
+import com.ritesh.idea.plugin.diff.IVcsContentProvider;
+import com.ritesh.idea.plugin.diff.VcsContentProviderFactory;
 import com.ritesh.idea.plugin.exception.InvalidConfigurationException;
 import com.ritesh.idea.plugin.reviewboard.model.RBComments;
 import com.ritesh.idea.plugin.reviewboard.model.RBCreateReview;
+import com.ritesh.idea.plugin.reviewboard.model.RBDiffComment;
 import com.ritesh.idea.plugin.reviewboard.model.RBDiffList;
 import com.ritesh.idea.plugin.reviewboard.model.RBFileDiff;
 import com.ritesh.idea.plugin.reviewboard.model.RBGroupList;
+import com.ritesh.idea.plugin.reviewboard.model.RBLink;
+import com.ritesh.idea.plugin.reviewboard.model.RBReplyList;
 import com.ritesh.idea.plugin.reviewboard.model.RBRepository;
 import com.ritesh.idea.plugin.reviewboard.model.RBReview;
+import com.ritesh.idea.plugin.reviewboard.model.RBReviewList;
+import com.ritesh.idea.plugin.reviewboard.model.RBReviewRequest;
 import com.ritesh.idea.plugin.reviewboard.model.RBReviewRequestList;
 import com.ritesh.idea.plugin.reviewboard.model.RBUserList;
 import com.ritesh.idea.plugin.state.Configuration;
 import com.ritesh.idea.plugin.state.ConfigurationPersistance;
 import com.ritesh.idea.plugin.state.DefaultState;
 import com.ritesh.idea.plugin.state.DefaultStatePersistance;
+import com.ritesh.idea.plugin.util.DiskContentCache;
+import com.ritesh.idea.plugin.util.HttpClientPool;
 import com.ritesh.idea.plugin.util.Page;
+import com.ritesh.idea.plugin.util.UnifiedPatch;
+import java.io.File;
 import java.io.IOException;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Future;
-import org.apache.commons.io.FilenameUtils;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.mutable.MutableFloat;
 
 /**
  * @author Ritesh
  */
-public class ReviewDataProvider {
+public class ReviewDataProvider implements Disposable {
+    private static final Logger LOG = Logger.getInstance(ReviewDataProvider.class);
+
+    private final Project project;
     private ReviewBoardClient client;
+    private final AsyncReviewBoardClient asyncClient;
+    private final DiskContentCache contentCache;
+    private final boolean reconstructPatchedFiles;
     private static Map<Project, ReviewDataProvider> reviewDataProviderMap = new WeakHashMap<>();
     public static final String REVIEWBOARD_PASSWORD = "somekeyforstoring..ex:projectname";
+    private static final String CONTENT_CACHE_DIR = "review-board/contents";
+    private static final String DRAFTS_DIR = "review-board/drafts";
+    private static final String CHECKPOINT_SUFFIX = ".publish";
+    private static final String ORIGINAL = "original";
+    private static final String PATCHED = "patched";
+    // Only what the review table shows, the rest is loaded by loadDetails once a review is selected
+    private static final Projection LIST_PROJECTION = Projection
+            .fields("id", "summary", "target_people", "last_updated", "status")
+            .links("submitter");
+    private static final Projection DETAILS_PROJECTION = Projection
+            .fields("id", "description", "branch", "target_groups")
+            .links("repository");
+    private static final Projection REVIEW_PROJECTION = Projection.fields("id").links("diff_comments", "replies");
+    private static final Projection REPLY_PROJECTION = Projection.fields("id").links("diff_comments");
+    private static final Projection COMMENT_PROJECTION = Projection
+            .fields("id", "text", "issue_status", "first_line", "num_lines", "timestamp")
+            .links("user", "filediff");
+    private static final Projection DRAFT_COMMENT_PROJECTION = Projection
+            .fields("id", "text", "first_line", "num_lines")
+            .links("filediff");
+    private static final Pattern FILE_DIFF_ID = Pattern.compile("/files/(\\d+)/?$");
 
 
     public static ReviewDataProvider getInstance(Project project) {
         Configuration configuration = getConfiguration(project);
 
         if (!reviewDataProviderMap.containsKey(project)) {
+            int maxConnectionsPerRoute = configuration.maxConnectionsPerRoute != null
+                    ? configuration.maxConnectionsPerRoute : HttpClientPool.DEFAULT_MAX_PER_ROUTE;
+            int maxConcurrentRequests = configuration.maxConcurrentRequests != null
+                    ? configuration.maxConcurrentRequests : maxConnectionsPerRoute;
             ReviewBoardClient client = new ReviewBoardClient(configuration.url
-                    , configuration.username, configuration.password);
-            reviewDataProviderMap.put(project, new ReviewDataProvider(client));
+                    , configuration.username, configuration.password, maxConnectionsPerRoute, maxConcurrentRequests,
+                    configuration.transport);
+            int contentCacheSize = configuration.contentCacheSize != null
+                    ? configuration.contentCacheSize : DiskContentCache.DEFAULT_MAX_SIZE_MB;
+            ReviewDataProvider provider = new ReviewDataProvider(project, client,
+                    new AsyncReviewBoardClient(client, maxConcurrentRequests), contentCache(contentCacheSize),
+                    configuration.reconstructPatchedFiles == Boolean.TRUE);
+            // Connections are kept open for as long as the project is
+            Disposer.register(project, provider);
+            reviewDataProviderMap.put(project, provider);
         }
         return reviewDataProviderMap.get(project);
     }
 
     public static void reset(){
+        for (ReviewDataProvider provider : new ArrayList<>(reviewDataProviderMap.values())) {
+            Disposer.dispose(provider);
+        }
         reviewDataProviderMap.clear();
     }
 
@@ -90,10 +154,54 @@ public class ReviewDataProvider {
         return state;
     }
 
+    private static DiskContentCache sharedContentCache;
     private Reference<List<Repository>> repositoriesCache;
 
-    private ReviewDataProvider(ReviewBoardClient client) {
+    private ReviewDataProvider(Project project, ReviewBoardClient client, AsyncReviewBoardClient asyncClient,
+                               DiskContentCache contentCache, boolean reconstructPatchedFiles) {
+        this.project = project;
         this.client = client;
+        this.asyncClient = asyncClient;
+        this.contentCache = contentCache;
+        this.reconstructPatchedFiles = reconstructPatchedFiles;
+    }
+
+    /**
+     * File contents of a published diff never change, so they are shared on disk by all projects.
+     */
+    private static synchronized DiskContentCache contentCache(int maxSizeMb) {
+        if (sharedContentCache == null) {
+            sharedContentCache = new DiskContentCache(new File(PathManager.getSystemPath(), CONTENT_CACHE_DIR),
+                    maxSizeMb * 1024L * 1024L);
+        } else {
+            sharedContentCache.setMaxSize(maxSizeMb * 1024L * 1024L);
+        }
+        return sharedContentCache;
+    }
+
+    @Override
+    public void dispose() {
+        if (reviewDataProviderMap.get(project) == this) reviewDataProviderMap.remove(project);
+        try {
+            LOG.debug("Closing review board connections : " + client.getPoolStats()
+                    + ", coalesced requests : " + client.getCoalescedRequests() + ", " + client.getLimiter()
+                    + ", " + client.getTransferStatistics());
+            client.close();
+        } catch (IOException e) {
+            LOG.warn(e);
+        }
+    }
+
+    /**
+     * Journal of the unpublished comments of the review, kept per server and user.
+     */
+    public DraftCommentJournal draftJournal(Review review) {
+        return new DraftCommentJournal(draftFile(review));
+    }
+
+    private File draftFile(Review review) {
+        String name = DigestUtils.sha1Hex(client.getUrl() + '\n' + client.getUserName() + '\n' + review.id);
+        return new File(new File(PathManager.getSystemPath(), DRAFTS_DIR), name);
     }
 
     public String reviewBoardUrl(Project project) {
@@ -118,11 +226,14 @@ public class ReviewDataProvider {
     }
 
 
+    /**
+     * Creates the review request with a diff spooled to a file, which is uploaded without loading it in memory.
+     */
     public void createReviewRequest(String summary, String description, String targetPeople, String targetGroup,
-                                    String repositoryId, String diffContent) throws Exception {
+                                    String repositoryId, File diff) throws Exception {
         RBCreateReview reviewRequestApi = client.createReviewRequestApi(repositoryId);
         String reviewRequestId = String.valueOf(reviewRequestApi.review_request.id);
-        client.draftDiffUploadApi(reviewRequestId, diffContent, "/");
+        client.draftDiffUploadApi(reviewRequestId, diff, "/");
         client.updateReviewApi(reviewRequestId, description, summary, targetGroup, targetPeople, true);
     }
 
@@ -156,64 +267,208 @@ public class ReviewDataProvider {
     }
 
     public static void testConnection(String url, String username, String password) throws Exception {
-        ReviewBoardClient client = new ReviewBoardClient(url, username, password);
-        client.testConnection(url, username, password);
+        try (ReviewBoardClient client = new ReviewBoardClient(url, username, password)) {
+            client.testConnection(url, username, password);
+        }
     }
 
     public interface Progress {
         void progress(String text, float percentage);
     }
 
-    public Page<Review> listReviews(String fromUser, String toUser, String status, String repositoryId, int start, int count) throws Exception {
+    public Page<Review> listReviews(String fromUser, String toUser, String status, String repositoryId,
+                                    final int start, final int count) throws Exception {
+        return AsyncReviewBoardClient.await(asyncClient.reviewRequestList(fromUser, toUser, status, repositoryId,
+                start, count, LIST_PROJECTION)
+                .thenApply(new Function<RBReviewRequestList, Page<Review>>() {
+                    @Override
+                    public Page<Review> apply(RBReviewRequestList reviewRequestList) {
+                        return reviews(reviewRequestList, start, count);
+                    }
+                }));
+    }
+
+    private static Page<Review> reviews(RBReviewRequestList reviewRequestList, int start, int count) {
         List<Review> reviews = new ArrayList<>();
-        RBReviewRequestList reviewRequestList = client.reviewRequestListApi(fromUser, toUser, status, repositoryId, start, count);
         for (RBReviewRequestList.ReviewRequest request : reviewRequestList.review_requests) {
-            String[] targetPeople = new String[request.target_people.length];
-            for (int i = 0; i < targetPeople.length; i++) targetPeople[i] = request.target_people[i].title;
-
-            String[] targetGroups = new String[request.target_groups.length];
-            for (int i = 0; i < targetGroups.length; i++) targetGroups[i] = request.target_groups[i].title;
-
             Review.Builder reviewBuilder = new Review.Builder()
                     .id(request.id)
                     .summary(request.summary)
-                    .description(request.description)
-                    .branch(request.branch)
                     .lastUpdated(request.last_updated)
                     .status(request.status)
-                    .targetPeople(targetPeople);
+                    .targetPeople(titles(request.target_people));
             if (request.links != null && request.links.submitter != null)
                 reviewBuilder.submitter(request.links.submitter.title);
-            if (request.links != null && request.links.repository != null)
-                reviewBuilder.respository(request.links.repository.title);
 
-            Review review = reviewBuilder.targetGroups(targetGroups)
-                    .build();
+            Review review = reviewBuilder.build();
             reviews.add(review);
         }
         return new Page<>(reviews, start, count, reviewRequestList.total_results);
     }
 
+    /**
+     * Fills in the details of a review request which are left out of the listing.
+     */
+    public CompletableFuture<Void> loadDetails(final Review review) {
+        return asyncClient.reviewRequest(review.id, DETAILS_PROJECTION).thenAccept(new Consumer<RBReviewRequest>() {
+            @Override
+            public void accept(RBReviewRequest reviewRequest) {
+                RBReviewRequestList.ReviewRequest request = reviewRequest.review_request;
+                review.description = request.description;
+                review.branch = request.branch;
+                review.targetGroups = titles(request.target_groups);
+                if (request.links != null && request.links.repository != null) {
+                    review.respository = request.links.repository.title;
+                }
+            }
+        });
+    }
+
+    private static String[] titles(RBLink[] links) {
+        if (links == null) return new String[0];
+        String[] titles = new String[links.length];
+        for (int i = 0; i < titles.length; i++) titles[i] = links[i].title;
+        return titles;
+    }
+
     public void shipIt(final Review reviewRequest) throws Exception {
         final RBReview review = client.createReviewApi(reviewRequest.id, true);
         client.updateReviewApi(reviewRequest.id, String.valueOf(review.review.id), true, null, null);
     }
 
-    public void createReview(final Review reviewRequest, final List<Review.File.Comment> comments, String reviewComment,
-                             final Progress progress) throws Exception {
-        final RBReview review = client.createReviewApi(reviewRequest.id, null);
-        final MutableFloat progressF = new MutableFloat(0f);
+    /**
+     * Posts the comments to the draft review of the user and publishes it. Progress is checkpointed, so that after
+     * a failure calling this again reuses the draft review and posts only the comments which are not on it yet.
+     * The checkpoint is dropped only once the review is known to be public.
+     */
+    public void createReview(final Review reviewRequest, final List<Review.File.Comment> comments,
+                             final String reviewComment, final Progress progress) throws Exception {
+        final PublishCheckpoint checkpoint = PublishCheckpoint.load(
+                new File(draftFile(reviewRequest).getPath() + CHECKPOINT_SUFFIX));
+        final String lastReviewId = checkpoint.getReviewId();
+        CompletableFuture<Boolean> published = lastReviewId == null ? CompletableFuture.completedFuture(false)
+                : asyncClient.review(reviewRequest.id, lastReviewId)
+                .thenApply(new Function<RBReview, Boolean>() {
+                    @Override
+                    public Boolean apply(RBReview review) {
+                        return review != null && review.review.isPublic;
+                    }
+                });
+        CompletableFuture<Void> review = published
+                .thenCompose(new Function<Boolean, CompletionStage<Void>>() {
+                    @Override
+                    public CompletionStage<Void> apply(Boolean isPublic) {
+                        if (isPublic) {
+                            // Only the response of making it public was lost last time
+                            if (checkpoint.isPosted(PublishCheckpoint.keys(comments))) {
+                                LOG.info("Review " + lastReviewId + " is already published");
+                                return CompletableFuture.completedFuture(null);
+                            }
+                            // Published elsewhere, e.g. on the web, the other comments go to a new draft review
+                            LOG.info("Review " + lastReviewId + " was published before all comments were posted");
+                            checkpoint.reviewPublished();
+                        }
+                        return publish(reviewRequest, comments, reviewComment, checkpoint, progress);
+                    }
+                });
+        AsyncReviewBoardClient.await(review);
+        checkpoint.delete();
+        progress.progress("Review Completed", 1);
+    }
 
-        for (final Review.File.Comment comment : comments) {
-            progress.progress("Updating comment", progressF.floatValue());
-            client.createDiffComment(reviewRequest.id, String.valueOf(review.review.id),
-                    comment.file.fileId, comment.firstLine, comment.numberOfLines, comment.text, comment.issueOpened);
-            progressF.setValue(progressF.floatValue() + 1.0f / (comments.size() - 1));
-        }
+    private CompletableFuture<Void> publish(final Review reviewRequest, final List<Review.File.Comment> comments,
+                                            final String reviewComment, final PublishCheckpoint checkpoint,
+                                            final Progress progress) {
+        final String[] keys = PublishCheckpoint.keys(comments);
+        return draftReviewId(reviewRequest)
+                .thenCompose(new Function<String, CompletionStage<String>>() {
+                    @Override
+                    public CompletionStage<String> apply(final String reviewId) {
+                        checkpoint.reviewCreated(reviewId);
+                        // A comment may be on the draft although its response was lost, the server is the reference
+                        return asyncClient.reviewDiffCommentList(reviewRequest.id, reviewId, DRAFT_COMMENT_PROJECTION)
+                                .thenApply(new Function<RBComments, String>() {
+                                    @Override
+                                    public String apply(RBComments draftComments) {
+                                        checkpoint.commentsOnServer(commentIds(draftComments.diff_comments));
+                                        return reviewId;
+                                    }
+                                });
+                    }
+                })
+                .thenCompose(new Function<String, CompletionStage<Void>>() {
+                    @Override
+                    public CompletionStage<Void> apply(final String reviewId) {
+                        final AtomicInteger posted = new AtomicInteger();
+                        progress.progress("Posting comments", 0f);
+                        // Posted concurrently, bounded by the client pool and the limiter of the server
+                        List<CompletableFuture<Void>> posts = new ArrayList<>();
+                        for (int i = 0; i < comments.size(); i++) {
+                            final String key = keys[i];
+                            if (checkpoint.isPosted(key)) {
+                                posted.incrementAndGet();
+                                continue;
+                            }
+                            Review.File.Comment comment = comments.get(i);
+                            posts.add(asyncClient.createDiffComment(reviewRequest.id, reviewId,
+                                    comment.file.fileId, comment.firstLine, comment.numberOfLines,
+                                    comment.text, comment.issueOpened)
+                                    .thenAccept(new Consumer<RBDiffComment>() {
+                                        @Override
+                                        public void accept(RBDiffComment created) {
+                                            checkpoint.commentPosted(key, created.diff_comment.id);
+                                            int done = posted.incrementAndGet();
+                                            progress.progress("Posted comment " + done + " of " + comments.size(),
+                                                    (float) done / comments.size());
+                                        }
+                                    }));
+                        }
+                        if (posted.get() > 0) {
+                            LOG.info("Resuming publishing of review " + reviewId + ", " + posted.get() + " of "
+                                    + comments.size() + " comments already posted");
+                        }
+                        // Published only once every comment is posted
+                        return CompletableFuture.allOf(posts.toArray(new CompletableFuture[posts.size()]))
+                                .thenCompose(new Function<Void, CompletionStage<Void>>() {
+                                    @Override
+                                    public CompletionStage<Void> apply(Void aVoid) {
+                                        progress.progress("Making review public", 1f);
+                                        return asyncClient.updateReview(reviewRequest.id, reviewId, true,
+                                                reviewComment, null);
+                                    }
+                                });
+                    }
+                });
+    }
 
-        progress.progress("Making review public", progressF.floatValue());
-        client.updateReviewApi(reviewRequest.id, String.valueOf(review.review.id), true, reviewComment, null);
-        progress.progress("Review Completed", 1);
+    private static Map<String, String> commentIds(RBComments.DiffComment[] draftComments) {
+        Map<String, String> ids = new HashMap<>();
+        if (draftComments == null) return ids;
+        String[] fileIds = new String[draftComments.length];
+        for (int i = 0; i < fileIds.length; i++) fileIds[i] = fileDiffId(draftComments[i]);
+        String[] keys = PublishCheckpoint.keys(draftComments, fileIds);
+        for (int i = 0; i < keys.length; i++) ids.put(keys[i], draftComments[i].id);
+        return ids;
+    }
+
+    /**
+     * Review Board keeps a single draft review per user, an existing one is reused rather than creating another.
+     */
+    private CompletableFuture<String> draftReviewId(final Review reviewRequest) {
+        return asyncClient.draftReview(reviewRequest.id)
+                .thenCompose(new Function<RBReview, CompletionStage<RBReview>>() {
+                    @Override
+                    public CompletionStage<RBReview> apply(RBReview draft) {
+                        if (draft != null) return CompletableFuture.completedFuture(draft);
+                        return asyncClient.createReview(reviewRequest.id, null);
+                    }
+                })
+                .thenApply(new Function<RBReview, String>() {
+                    @Override
+                    public String apply(RBReview review) {
+                        return String.valueOf(review.review.id);
+                    }
+                });
     }
 
 
@@ -231,69 +486,134 @@ public class ReviewDataProvider {
     }
 
 
+    /**
+     * Lists the files of latest diff, contents are not downloaded here but on demand by {@link #loadContents}.
+     */
     public List<Review.File> files(final Review review, final Progress progress) throws Exception {
+        progress.progress("Loading files", 0f);
+        List<Review.File> result = AsyncReviewBoardClient.await(asyncClient.diffList(review.id)
+                .thenCompose(new Function<RBDiffList, CompletionStage<List<Review.File>>>() {
+                    @Override
+                    public CompletionStage<List<Review.File>> apply(RBDiffList diffList) {
+                        if (diffList.total_results <= 0 || diffList.diffs.length == 0) {
+                            return CompletableFuture.<List<Review.File>>completedFuture(new ArrayList<Review.File>());
+                        }
+                        RBDiffList.Diff diff = latest(diffList.diffs);
+                        final String revision = String.valueOf(diff.revision);
+                        if (diff.files != null) {
+                            return CompletableFuture.completedFuture(files(diff.files, revision));
+                        }
+                        // Server did not expand the files
+                        return asyncClient.fileDiff(review.id, revision)
+                                .thenApply(new Function<RBFileDiff, List<Review.File>>() {
+                                    @Override
+                                    public List<Review.File> apply(RBFileDiff fileDiff) {
+                                        return files(fileDiff.files, revision);
+                                    }
+                                });
+                    }
+                }));
+        progress.progress("Completed loading files", 1f);
+        return result;
+    }
+
+    private static RBDiffList.Diff latest(RBDiffList.Diff[] diffs) {
+        RBDiffList.Diff latest = diffs[0];
+        for (RBDiffList.Diff diff : diffs) {
+            if (Integer.parseInt(diff.revision) > Integer.parseInt(latest.revision)) latest = diff;
+        }
+        return latest;
+    }
+
+    private static List<Review.File> files(RBFileDiff.File[] files, String revision) {
         List<Review.File> result = new ArrayList<>();
-        final List<Future> futures = new CopyOnWriteArrayList<>();
-        final MutableFloat progressF = new MutableFloat(0f);
-        final RBDiffList diffList = client.diffListApi(review.id);
+        for (final RBFileDiff.File file : files) {
+            final Review.File diffFile = new Review.File();
+
+            diffFile.fileId = file.id;
+            diffFile.srcFileName = file.source_file;
+            diffFile.dstFileName = file.dest_file;
+            diffFile.sourceRevision = file.source_revision;
+            diffFile.revision = revision;
+            diffFile.srcFileHref = file.links.original_file.href;
+            diffFile.dstFileHref = file.links.patched_file.href;
+            if (file.links.self != null) diffFile.patchHref = file.links.self.href;
+            result.add(diffFile);
+        }
+        return result;
+    }
 
-        if (diffList.total_results > 0) {
-            final String revision = String.valueOf(diffList.diffs[0].revision);
-            final RBFileDiff fileDiff = client.fileDiffApi(review.id, revision);
+    /**
+     * Downloads original and patched contents of the file unless they are already loaded.
+     */
+    public void loadContents(Review.File file) {
+        if (file.contentsLoaded) return;
+        synchronized (file) {
+            if (file.contentsLoaded) return;
+            String srcFileContents = contents(file, ORIGINAL, file.srcFileHref);
+            ProgressManager.checkCanceled();
+            String dstFileContents = contents(file, PATCHED, file.dstFileHref);
+            // Nothing is stored once the caller is cancelled
+            ProgressManager.checkCanceled();
+            file.srcFileContents = srcFileContents;
+            file.dstFileContents = dstFileContents;
+            file.contentsLoaded = true;
+        }
+    }
 
-            for (final RBFileDiff.File file : fileDiff.files) {
-                final Review.File diffFile = new Review.File();
+    private String contents(Review.File file, String side, String href) {
+        String key = client.getUrl() + "/" + file.fileId + "/" + side;
+        Ref<String> cached = contentCache.get(key);
+        if (cached != null) return cached.get();
 
-                diffFile.fileId = file.id;
-                diffFile.srcFileName = file.source_file;
-                diffFile.dstFileName = file.dest_file;
-                diffFile.sourceRevision = file.source_revision;
-                diffFile.revision = revision;
+        if (ORIGINAL.equals(side)) {
+            String localContents = localContents(file);
+            if (localContents != null) return localContents;
+        }
 
-                futures.add(ApplicationManager.getApplication().executeOnPooledThread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                progress.progress("Loading file contents "
-                                        + FilenameUtils.getName(diffFile.srcFileName), progressF.floatValue());
-                                diffFile.srcFileContents = client.contents(file.links.original_file.href);
-                                progressF.setValue(progressF.floatValue() + 1.0f / diffList.total_results);
-                                progress.progress("Completed loading contents", progressF.floatValue());
-                            }
-                        }
-                ));
+        String contents = PATCHED.equals(side) ? reconstructPatched(file) : null;
+        if (contents == null) contents = client.contents(href);
+        // Only actual contents are cached, a missing file is asked for again next time
+        if (contents != null) contentCache.put(key, contents);
+        return contents;
+    }
 
-                futures.add(ApplicationManager.getApplication().executeOnPooledThread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                progress.progress("Loading file contents "
-                                        + FilenameUtils.getName(diffFile.dstFileName), progressF.floatValue());
-                                diffFile.dstFileContents = client.contents(file.links.patched_file.href);
-                                progressF.setValue(progressF.floatValue() + 1.0f / diffList.total_results);
-                                progress.progress("Completed loading contents", progressF.floatValue());
-                            }
-                        }
-                ));
-                result.add(diffFile);
-            }
+    /**
+     * Reads the original side from the project's own repository when it has the source revision.
+     */
+    private String localContents(Review.File file) {
+        IVcsContentProvider contentProvider = VcsContentProviderFactory.getVcsContentProvider(project);
+        if (contentProvider == null) return null;
+        try {
+            return contentProvider.content(file.sourceRevision, file.srcFileName);
+        } catch (VcsException e) {
+            LOG.debug("Revision " + file.sourceRevision + " not available locally", e);
+            return null;
         }
-        for (Future future : futures) future.get();
-        return result;
+    }
+
+    /**
+     * Rebuilds the patched side by applying the file's patch on the original, when enabled.
+     *
+     * @return patched contents or null if it has to be downloaded
+     */
+    private String reconstructPatched(Review.File file) {
+        if (!reconstructPatchedFiles || file.srcFileContents == null || file.patchHref == null) return null;
+        String patch = client.patch(file.patchHref);
+        if (patch == null) return null;
+
+        String contents = UnifiedPatch.apply(file.srcFileContents, patch);
+        if (contents == null) {
+            LOG.info("Patch does not apply on " + file.srcFileName + ", downloading patched file");
+        }
+        return contents;
     }
 
     public List<Review.File.Comment> comments(Review review, Review.File file) throws Exception {
         RBComments comments = client.diffCommentListApi(review.id, file.revision, file.fileId);
         List<Review.File.Comment> result = new ArrayList<>();
         for (RBComments.DiffComment diff_comment : comments.diff_comments) {
-            Review.File.Comment comment = new Review.File.Comment();
-            comment.id = diff_comment.id;
-            comment.text = diff_comment.text;
-            comment.issueOpened = diff_comment.issue_status;
-            comment.firstLine = diff_comment.first_line;
-            comment.numberOfLines = diff_comment.num_lines;
-            comment.timestamp = diff_comment.timestamp;
-            comment.user = diff_comment.links.user.title;
+            Review.File.Comment comment = comment(diff_comment);
             comment.file = file;
             result.add(comment);
         }
@@ -301,4 +621,100 @@ public class ReviewDataProvider {
         return result;
     }
 
+    /**
+     * Loads the published comments of all reviews on the review request in one pass: a paged list of reviews,
+     * then the diff comments of each review and of the replies to it in parallel.
+     */
+    public CompletableFuture<CommentIndex> commentIndex(final Review review) {
+        return asyncClient.reviewList(review.id, REVIEW_PROJECTION)
+                .thenCompose(new Function<RBReviewList, CompletionStage<CommentIndex>>() {
+                    @Override
+                    public CompletionStage<CommentIndex> apply(RBReviewList reviewList) {
+                        List<CompletableFuture<List<RBComments>>> futures = new ArrayList<>();
+                        List<CompletableFuture<RBComments>> reviewComments = new ArrayList<>();
+                        for (RBReviewList.Review rbReview : reviewList.reviews) {
+                            if (rbReview.links == null) continue;
+                            if (rbReview.links.diff_comments != null) {
+                                reviewComments.add(asyncClient.diffCommentList(rbReview.links.diff_comments.href,
+                                        COMMENT_PROJECTION));
+                            }
+                            if (rbReview.links.replies != null) {
+                                futures.add(replyComments(rbReview.links.replies.href));
+                            }
+                        }
+                        futures.add(all(reviewComments));
+                        return all(futures).thenApply(new Function<List<List<RBComments>>, CommentIndex>() {
+                            @Override
+                            public CommentIndex apply(List<List<RBComments>> lists) {
+                                CommentIndex index = new CommentIndex();
+                                for (List<RBComments> commentLists : lists) {
+                                    for (RBComments comments : commentLists) {
+                                        for (RBComments.DiffComment diff_comment : comments.diff_comments) {
+                                            String fileDiffId = fileDiffId(diff_comment);
+                                            if (fileDiffId != null) index.add(fileDiffId, comment(diff_comment));
+                                        }
+                                    }
+                                }
+                                index.sort();
+                                return index;
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Loads the diff comments of all published replies to a review, given the href of its reply list.
+     */
+    private CompletableFuture<List<RBComments>> replyComments(String repliesHref) {
+        return asyncClient.replyList(repliesHref, REPLY_PROJECTION)
+                .thenCompose(new Function<RBReplyList, CompletionStage<List<RBComments>>>() {
+                    @Override
+                    public CompletionStage<List<RBComments>> apply(RBReplyList replyList) {
+                        List<CompletableFuture<RBComments>> futures = new ArrayList<>();
+                        for (RBReplyList.Reply reply : replyList.replies) {
+                            if (reply.links == null || reply.links.diff_comments == null) continue;
+                            futures.add(asyncClient.diffCommentList(reply.links.diff_comments.href,
+                                    COMMENT_PROJECTION));
+                        }
+                        return all(futures);
+                    }
+                });
+    }
+
+    /**
+     * @return results of the futures in their order, once all of them are done
+     */
+    private static <T> CompletableFuture<List<T>> all(final List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+                .thenApply(new Function<Void, List<T>>() {
+                    @Override
+                    public List<T> apply(Void ignored) {
+                        List<T> results = new ArrayList<>();
+                        for (CompletableFuture<T> future : futures) {
+                            results.add(future.join());
+                        }
+                        return results;
+                    }
+                });
+    }
+
+    private static String fileDiffId(RBComments.DiffComment diff_comment) {
+        if (diff_comment.links == null || diff_comment.links.filediff == null) return null;
+        Matcher matcher = FILE_DIFF_ID.matcher(diff_comment.links.filediff.href);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Review.File.Comment comment(RBComments.DiffComment diff_comment) {
+        Review.File.Comment comment = new Review.File.Comment();
+        comment.id = diff_comment.id;
+        comment.text = diff_comment.text;
+        comment.issueOpened = diff_comment.issue_status;
+        comment.firstLine = diff_comment.first_line;
+        comment.numberOfLines = diff_comment.num_lines;
+        comment.timestamp = diff_comment.timestamp;
+        comment.user = diff_comment.links.user.title;
+        return comment;
+    }
+
 }
@@ -37,6 +37,7 @@ public class RBComments extends RBModel {
 
         public static class Links {
             public RBLink user;
+            public RBLink filediff;
         }
     }
 }
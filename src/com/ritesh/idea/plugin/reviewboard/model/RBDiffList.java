@@ -28,6 +28,8 @@ public class RBDiffList extends RBModel {
         public String name;
         public String revision;
         public Links links;
+        // Only when the server expanded the files of the diff
+        public RBFileDiff.File[] files;
 
         public static class Links {
             public RBLink repository;
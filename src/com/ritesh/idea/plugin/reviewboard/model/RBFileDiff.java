@@ -31,6 +31,7 @@ public class RBFileDiff extends RBModel {
         public String source_revision;
 
         public static class Links {
+            public RBLink self;
             public RBLink diff_comments;
             public RBLink patched_file;
             public RBLink original_file;
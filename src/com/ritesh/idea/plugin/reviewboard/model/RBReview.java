@@ -16,6 +16,8 @@
 
 package com.ritesh.idea.plugin.reviewboard.model;
 
+import com.google.gson.annotations.SerializedName;
+
 /**
  * @author Ritesh
  */
@@ -24,5 +26,7 @@ public class RBReview extends RBModel {
 
     public static class Review {
         public int id;
+        @SerializedName("public")
+        public boolean isPublic;
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.reviewboard.model;
+
+public class RBReviewList extends RBModel {
+    public int total_results;
+    public Review[] reviews;
+
+    public static class Review {
+        public String id;
+        public Links links;
+
+        public static class Links {
+            public RBLink diff_comments;
+            public RBLink replies;
+        }
+    }
+}
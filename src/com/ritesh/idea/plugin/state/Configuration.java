@@ -25,6 +25,11 @@ public class Configuration {
     public String password;
     public Boolean useRbTools;
     public String rbtPath;
+    public Integer maxConnectionsPerRoute;
+    public Integer contentCacheSize;
+    public Boolean reconstructPatchedFiles;
+    public Integer maxConcurrentRequests;
+    public String transport;
 
     public Configuration(String url, String username, String password, Boolean useRbTools, String rbtPath) {
         this.url = url;
@@ -40,7 +45,13 @@ public class Configuration {
     @Override
     protected Object clone() throws CloneNotSupportedException {
         super.clone();
-        return new Configuration(url, username, password, useRbTools, rbtPath);
+        Configuration configuration = new Configuration(url, username, password, useRbTools, rbtPath);
+        configuration.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        configuration.contentCacheSize = contentCacheSize;
+        configuration.reconstructPatchedFiles = reconstructPatchedFiles;
+        configuration.maxConcurrentRequests = maxConcurrentRequests;
+        configuration.transport = transport;
+        return configuration;
     }
 
     @Override
@@ -50,6 +61,11 @@ public class Configuration {
                 ", url='" + url + '\'' +
                 ", useRbTools='" + useRbTools + '\'' +
                 ", rbtPath='" + rbtPath + '\'' +
+                ", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+                ", contentCacheSize=" + contentCacheSize +
+                ", reconstructPatchedFiles=" + reconstructPatchedFiles +
+                ", maxConcurrentRequests=" + maxConcurrentRequests +
+                ", transport='" + transport + '\'' +
                 '}';
     }
 
@@ -64,7 +80,12 @@ public class Configuration {
                 && !(username != null ? !username.equals(that.username) : that.username != null)
                 && !(password != null ? !password.equals(that.password) : that.password != null)
                 && !(rbtPath != null ? !rbtPath.equals(that.rbtPath) : that.rbtPath != null)
-                && !(useRbTools != null ? !useRbTools.equals(that.useRbTools) : that.useRbTools != null);
+                && !(useRbTools != null ? !useRbTools.equals(that.useRbTools) : that.useRbTools != null)
+                && !(maxConnectionsPerRoute != null ? !maxConnectionsPerRoute.equals(that.maxConnectionsPerRoute) : that.maxConnectionsPerRoute != null)
+                && !(contentCacheSize != null ? !contentCacheSize.equals(that.contentCacheSize) : that.contentCacheSize != null)
+                && !(reconstructPatchedFiles != null ? !reconstructPatchedFiles.equals(that.reconstructPatchedFiles) : that.reconstructPatchedFiles != null)
+                && !(maxConcurrentRequests != null ? !maxConcurrentRequests.equals(that.maxConcurrentRequests) : that.maxConcurrentRequests != null)
+                && !(transport != null ? !transport.equals(that.transport) : that.transport != null);
 
     }
 
@@ -75,6 +96,11 @@ public class Configuration {
         result = 31 * result + (password != null ? password.hashCode() : 0);
         result = 31 * result + (useRbTools != null ? useRbTools.hashCode() : 0);
         result = 31 * result + (rbtPath != null ? rbtPath.hashCode() : 0);
+        result = 31 * result + (maxConnectionsPerRoute != null ? maxConnectionsPerRoute.hashCode() : 0);
+        result = 31 * result + (contentCacheSize != null ? contentCacheSize.hashCode() : 0);
+        result = 31 * result + (reconstructPatchedFiles != null ? reconstructPatchedFiles.hashCode() : 0);
+        result = 31 * result + (maxConcurrentRequests != null ? maxConcurrentRequests.hashCode() : 0);
+        result = 31 * result + (transport != null ? transport.hashCode() : 0);
         return result;
     }
 }
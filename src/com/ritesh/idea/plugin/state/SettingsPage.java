@@ -28,6 +28,9 @@ import com.ritesh.idea.plugin.reviewboard.ReviewDataProvider;
 import com.ritesh.idea.plugin.ui.ExceptionHandler;
 import com.ritesh.idea.plugin.ui.TaskUtil;
 import com.ritesh.idea.plugin.ui.panels.LoginPanel;
+import com.ritesh.idea.plugin.util.DiskContentCache;
+import com.ritesh.idea.plugin.util.HttpClientPool;
+import com.ritesh.idea.plugin.util.HttpTransport;
 import com.ritesh.idea.plugin.util.ThrowableFunction;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -74,6 +77,11 @@ public class SettingsPage implements Configurable {
             loginPanel.setPassword(oldConfigurationState.username);
             loginPanel.setUseRbTools(oldConfigurationState.useRbTools);
             loginPanel.setUseRbToolPath(oldConfigurationState.rbtPath);
+            loginPanel.setReconstructPatchedFiles(oldConfigurationState.reconstructPatchedFiles);
+            loginPanel.setTransport(oldConfigurationState.transport);
+            loginPanel.setMaxConcurrentRequests(oldConfigurationState.maxConcurrentRequests);
+            loginPanel.setContentCacheSize(oldConfigurationState.contentCacheSize);
+            loginPanel.setMaxConnections(oldConfigurationState.maxConnectionsPerRoute);
         }
         loginPanel.addActionListener(new ActionListener() {
             @Override
@@ -93,6 +101,11 @@ public class SettingsPage implements Configurable {
                 !Comparing.equal(loginPanel.getUsername(), oldConfigurationState.username) ||
                 !Comparing.equal(loginPanel.useRbTools(), oldConfigurationState.useRbTools) ||
                 !Comparing.equal(loginPanel.rbtPath(), oldConfigurationState.rbtPath) ||
+                !Comparing.equal(loginPanel.reconstructPatchedFiles(), oldConfigurationState.reconstructPatchedFiles == Boolean.TRUE) ||
+                !Comparing.equal(loginPanel.transport(), oldConfigurationState.transport != null ? oldConfigurationState.transport : HttpTransport.HTTP_1_1) ||
+                !Comparing.equal(loginPanel.maxConnections(), oldConfigurationState.maxConnectionsPerRoute != null ? oldConfigurationState.maxConnectionsPerRoute : HttpClientPool.DEFAULT_MAX_PER_ROUTE) ||
+                !Comparing.equal(loginPanel.contentCacheSize(), oldConfigurationState.contentCacheSize != null ? oldConfigurationState.contentCacheSize : DiskContentCache.DEFAULT_MAX_SIZE_MB) ||
+                !Comparing.equal(loginPanel.maxConcurrentRequests(), oldConfigurationState.maxConcurrentRequests != null ? oldConfigurationState.maxConcurrentRequests : HttpClientPool.DEFAULT_MAX_PER_ROUTE) ||
                 !Comparing.equal(loginPanel.getPassword(), oldConfigurationState.password);
     }
 
@@ -100,6 +113,11 @@ public class SettingsPage implements Configurable {
     public void apply() throws ConfigurationException {
         Configuration configuration = new Configuration(
                 loginPanel.getUrl(), loginPanel.getUsername(), loginPanel.getPassword(), loginPanel.useRbTools(), loginPanel.rbtPath());
+        configuration.reconstructPatchedFiles = loginPanel.reconstructPatchedFiles();
+        configuration.transport = loginPanel.transport();
+        configuration.maxConcurrentRequests = loginPanel.maxConcurrentRequests();
+        configuration.contentCacheSize = loginPanel.contentCacheSize();
+        configuration.maxConnectionsPerRoute = loginPanel.maxConnections();
         ReviewDataProvider.saveConfigurationState(project, configuration);
         ReviewDataProvider.reset();
     }
@@ -19,8 +19,11 @@ package com.ritesh.idea.plugin.ui;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
+import com.ritesh.idea.plugin.util.HttpRequestBuilder;
 import com.ritesh.idea.plugin.util.ThrowableFunction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -66,20 +69,27 @@ public class TaskUtil {
         Future<Exception> future = ApplicationManager.getApplication().executeOnPooledThread(new Callable<Exception>() {
             @Override
             public Exception call() throws Exception {
-                try {
-                    T result = task.throwableCall(progressIndicator);
-                    if (success != null) success.throwableCall(result);
-                } catch (Exception e) {
-                    return e;
-                }
-                return null;
+                final Ref<Exception> exception = new Ref<>();
+                // Requests sent by the task find the indicator through the progress manager
+                ProgressManager.getInstance().executeProcessUnderProgress(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            T result = task.throwableCall(progressIndicator);
+                            if (success != null) success.throwableCall(result);
+                        } catch (Exception e) {
+                            exception.set(e);
+                        }
+                    }
+                }, progressIndicator);
+                return exception.get();
             }
         });
 
         while (true) {
             try {
                 final Exception exception = future.get(100, TimeUnit.MILLISECONDS);
-                if (exception != null) {
+                if (exception != null && !(exception instanceof ProcessCanceledException)) {
                     ExceptionHandler.handleException(exception);
                     if (onFailure != null) onFailure.run();
                 }
@@ -88,6 +98,9 @@ public class TaskUtil {
                 try {
                     progressIndicator.checkCanceled();
                 } catch (ProcessCanceledException e) {
+                    // Stop the work instead of leaving it to download in background
+                    future.cancel(true);
+                    HttpRequestBuilder.abortRequests(progressIndicator);
                     return;
                 }
             } catch (Exception e) {
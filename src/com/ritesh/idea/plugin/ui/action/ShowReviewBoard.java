@@ -28,6 +28,7 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.ritesh.idea.plugin.diff.IVcsDiffProvider;
+import com.ritesh.idea.plugin.diff.SpooledDiff;
 import com.ritesh.idea.plugin.diff.VcsDiffProviderFactory;
 import com.ritesh.idea.plugin.messages.PluginBundle;
 import com.ritesh.idea.plugin.reviewboard.ReviewDataProvider;
@@ -37,7 +38,7 @@ import com.ritesh.idea.plugin.ui.TaskUtil;
 import com.ritesh.idea.plugin.ui.panels.DraftReviewPanel;
 import com.ritesh.idea.plugin.util.ThrowableFunction;
 
-import static org.apache.commons.lang.StringUtils.isEmpty;
+import java.io.OutputStream;
 
 /**
  * @author Ritesh
@@ -66,20 +67,24 @@ public class ShowReviewBoard extends AnAction {
                 TaskUtil.queueTask(project, "Generating diff", false, new ThrowableFunction<ProgressIndicator, Object>() {
                     @Override
                     public Object throwableCall(ProgressIndicator params) throws Exception {
-                        final String diffContent;
+                        final SpooledDiff diff = SpooledDiff.create();
                         try {
-                            diffContent = vcsDiffProvider.generateDiff(project, e);
+                            try (OutputStream out = diff.openStream()) {
+                                vcsDiffProvider.generateDiff(project, e, out);
+                            }
                             ApplicationManager.getApplication().invokeLater(new Runnable() {
                                 @Override
                                 public void run() {
-                                    if (isEmpty(diffContent)) {
+                                    if (diff.isEmpty()) {
+                                        diff.delete();
                                         Messages.showErrorDialog(project, "Cannot generate diff", "Error");
                                     } else {
-                                        showCreateReviewPanel(project, diffContent);
+                                        showCreateReviewPanel(project, diff);
                                     }
                                 }
                             });
                         } catch (Exception ex) {
+                            diff.delete();
                             ExceptionHandler.handleException(ex);
                         }
                         return null;
@@ -92,10 +97,10 @@ public class ShowReviewBoard extends AnAction {
         }
     }
 
-    private void showCreateReviewPanel(final Project project, final String diffContent) {
+    private void showCreateReviewPanel(final Project project, final SpooledDiff diff) {
         DefaultState state = ReviewDataProvider.getDefaultState(project);
         final DraftReviewPanel draftReviewPanel =
-                new DraftReviewPanel(project, "Create Review Request", null, null, state.targetPeople, state.targetGroup, state.repository);
+                new DraftReviewPanel(project, "Create Review Request (" + diff + ")", null, null, state.targetPeople, state.targetGroup, state.repository);
         if (draftReviewPanel.showAndGet()) {
             ReviewDataProvider.saveDefaultState(project,
                     new DefaultState(draftReviewPanel.getRepository(), draftReviewPanel.getTargetPeople(),
@@ -104,13 +109,19 @@ public class ShowReviewBoard extends AnAction {
             TaskUtil.queueTask(project, "Uploading Review", false, new ThrowableFunction<ProgressIndicator, Void>() {
                 @Override
                 public Void throwableCall(ProgressIndicator params) throws Exception {
-                    ReviewDataProvider.getInstance(project).
-                            createReviewRequest(draftReviewPanel.getSummary(), draftReviewPanel.getDescription(),
-                                    draftReviewPanel.getTargetPeople(), draftReviewPanel.getTargetGroup(),
-                                    draftReviewPanel.getRepositoryId(), diffContent);
+                    try {
+                        ReviewDataProvider.getInstance(project).
+                                createReviewRequest(draftReviewPanel.getSummary(), draftReviewPanel.getDescription(),
+                                        draftReviewPanel.getTargetPeople(), draftReviewPanel.getTargetGroup(),
+                                        draftReviewPanel.getRepositoryId(), diff.getFile());
+                    } finally {
+                        diff.delete();
+                    }
                     return null;
                 }
             }, null, null);
+        } else {
+            diff.delete();
         }
     }
 }
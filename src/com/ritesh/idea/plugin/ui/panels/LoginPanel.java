@@ -17,6 +17,9 @@
 package com.ritesh.idea.plugin.ui.panels;
 
 import com.intellij.ui.components.JBCheckBox;
+import com.ritesh.idea.plugin.util.DiskContentCache;
+import com.ritesh.idea.plugin.util.HttpClientPool;
+import com.ritesh.idea.plugin.util.HttpTransport;
 
 import javax.swing.*;
 import java.awt.event.ActionListener;
@@ -35,8 +38,16 @@ public class LoginPanel {
     private JBCheckBox useRbTools;
     private JTextField rbtPath;
     private JCheckBox useRbtPath;
+    private JBCheckBox reconstructPatchedFiles;
+    private JComboBox<String> transport;
+    private JSpinner maxConnections;
+    private JSpinner contentCacheSize;
+    private JSpinner maxConcurrentRequests;
 
     public LoginPanel() {
+        maxConcurrentRequests.setModel(new SpinnerNumberModel(HttpClientPool.DEFAULT_MAX_PER_ROUTE, 1, 64, 1));
+        contentCacheSize.setModel(new SpinnerNumberModel(DiskContentCache.DEFAULT_MAX_SIZE_MB, 16, 8192, 1));
+        maxConnections.setModel(new SpinnerNumberModel(HttpClientPool.DEFAULT_MAX_PER_ROUTE, 1, 64, 1));
         useRbTools.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(ItemEvent e) {
@@ -115,6 +126,46 @@ public class LoginPanel {
         }
     }
 
+    public Boolean reconstructPatchedFiles() {
+        return reconstructPatchedFiles.isSelected();
+    }
+
+    public void setReconstructPatchedFiles(Boolean reconstructPatchedFiles) {
+        this.reconstructPatchedFiles.setSelected(reconstructPatchedFiles == Boolean.TRUE);
+    }
+
+    public String transport() {
+        return (String) transport.getSelectedItem();
+    }
+
+    public void setTransport(String transport) {
+        this.transport.setSelectedItem(transport != null ? transport : HttpTransport.HTTP_1_1);
+    }
+
+    public Integer maxConnections() {
+        return (Integer) maxConnections.getValue();
+    }
+
+    public void setMaxConnections(Integer maxConnections) {
+        this.maxConnections.setValue(maxConnections != null ? maxConnections : HttpClientPool.DEFAULT_MAX_PER_ROUTE);
+    }
+
+    public Integer contentCacheSize() {
+        return (Integer) contentCacheSize.getValue();
+    }
+
+    public void setContentCacheSize(Integer contentCacheSize) {
+        this.contentCacheSize.setValue(contentCacheSize != null ? contentCacheSize : DiskContentCache.DEFAULT_MAX_SIZE_MB);
+    }
+
+    public Integer maxConcurrentRequests() {
+        return (Integer) maxConcurrentRequests.getValue();
+    }
+
+    public void setMaxConcurrentRequests(Integer maxConcurrentRequests) {
+        this.maxConcurrentRequests.setValue(maxConcurrentRequests != null ? maxConcurrentRequests : HttpClientPool.DEFAULT_MAX_PER_ROUTE);
+    }
+
     public String rbtPath() {
         if (useRbtPath.isSelected() && useRbTools.isSelected()) return rbtPath.getText();
         return null;
@@ -20,26 +20,55 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.changes.ui.ChangeNodeDecorator;
 import com.intellij.openapi.vcs.changes.ui.ChangesBrowserNode;
+import com.intellij.openapi.vcs.changes.ui.ChangesBrowserNodeRenderer;
 import com.intellij.openapi.vcs.changes.ui.ChangesTreeList;
 import com.intellij.openapi.vcs.changes.ui.TreeModelBuilder;
+import com.intellij.ui.SimpleColoredComponent;
+import com.intellij.ui.SimpleTextAttributes;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.DefaultTreeModel;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Ritesh
  */
 public class ReviewChangesTreeList extends ChangesTreeList<Change> {
+    private Map<Change, Integer> commentCounts = Collections.emptyMap();
 
     public ReviewChangesTreeList(Project project, Collection<Change> changes) {
         super(project, changes, false, true, null, null);
     }
 
+    /**
+     * Shows the changes with the number of published comments on each of them, replies included.
+     */
+    public void setChangesToDisplay(List<Change> changes, Map<Change, Integer> commentCounts) {
+        this.commentCounts = commentCounts;
+        setChangesToDisplay(changes);
+    }
+
     @Override
     protected DefaultTreeModel buildTreeModel(List<Change> list, ChangeNodeDecorator changeNodeDecorator) {
-        return new TreeModelBuilder(myProject, false).buildModel(list, changeNodeDecorator);
+        return new TreeModelBuilder(myProject, false).buildModel(list,
+                changeNodeDecorator != null ? changeNodeDecorator : new CommentCountDecorator());
+    }
+
+    private class CommentCountDecorator implements ChangeNodeDecorator {
+        @Override
+        public void decorate(Change change, SimpleColoredComponent component, boolean isShowFlatten) {
+            Integer count = commentCounts.get(change);
+            if (count == null || count == 0) return;
+            component.append(count == 1 ? "  1 comment" : "  " + count + " comments",
+                    SimpleTextAttributes.GRAYED_ATTRIBUTES);
+        }
+
+        @Override
+        public void preDecorate(Change change, ChangesBrowserNodeRenderer renderer, boolean showFlatten) {
+        }
     }
 
     @Override
@@ -18,11 +18,19 @@ package com.ritesh.idea.plugin.ui.toolswindow.reviewpanel;
 
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.options.ShowSettingsUtil;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.ritesh.idea.plugin.exception.InvalidConfigurationException;
+import com.ritesh.idea.plugin.reviewboard.AsyncReviewBoardClient;
+import com.ritesh.idea.plugin.reviewboard.CommentIndex;
+import com.ritesh.idea.plugin.reviewboard.DraftCommentJournal;
 import com.ritesh.idea.plugin.reviewboard.Repository;
 import com.ritesh.idea.plugin.reviewboard.Review;
 import com.ritesh.idea.plugin.reviewboard.ReviewDataProvider;
@@ -35,8 +43,21 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 public class ReviewPanelController {
+    private static final Logger LOG = Logger.getInstance(ReviewPanelController.class);
+    private static final int PREFETCH_THREADS = 8;
+    // Requests are further limited per server by the client, this only bounds the threads waiting on it
+    private static final ExecutorService prefetchExecutor =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("Review Board file prefetch", PREFETCH_THREADS);
+
     private Project project;
     private ReviewsPanel view;
 
@@ -55,7 +76,23 @@ public class ReviewPanelController {
 
     //Map of fileId and new comments list
     private Map<String, List<Review.File.Comment>> newComments = new HashMap<>();
-    private List<Review.File> selectedFiles;
+    private volatile List<Review.File> selectedFiles;
+    // Published comments of the selected review, null until loaded or when the server could not list them
+    private volatile CommentIndex commentIndex;
+    // On-disk copy of newComments, so that they survive a restart of the IDE
+    private volatile DraftCommentJournal draftJournal;
+
+    private enum LoadState {
+        IDLE, LOADING_FILES, PREFETCHING, LOADED, FAILED
+    }
+
+    // Loading of the selected review is owned by a single generation, starting a new load supersedes older ones
+    private final Object loadLock = new Object();
+    private int loadGeneration;
+    private LoadState loadState = LoadState.IDLE;
+    private final List<ProgressIndicator> loadIndicators = new ArrayList<>();
+    // Indicator of the files prefetched on hover, created once per load
+    private ProgressIndicator hoverIndicator;
 
     public ReviewPanelController(Project project, ReviewsPanel view) {
         this.project = project;
@@ -145,7 +182,10 @@ public class ReviewPanelController {
         TaskUtil.queueTask(project, "Loading Comments", false, new ThrowableFunction<ProgressIndicator, List<Review.File.Comment>>() {
             @Override
             public List<Review.File.Comment> throwableCall(ProgressIndicator params) throws Exception {
-                List<Review.File.Comment> comments = ReviewDataProvider.getInstance(project).comments(selectedReview, file);
+                ReviewDataProvider.getInstance(project).loadContents(file);
+                CommentIndex index = commentIndex;
+                List<Review.File.Comment> comments = index != null ? index.comments(file)
+                        : ReviewDataProvider.getInstance(project).comments(selectedReview, file);
 
                 List<Review.File.Comment> commentsForFile = newComments.get(file.fileId);
                 if (commentsForFile != null) comments.addAll(commentsForFile);
@@ -163,6 +203,8 @@ public class ReviewPanelController {
         } else {
             newComments.put(file.fileId, comments);
         }
+        DraftCommentJournal journal = draftJournal;
+        if (journal != null) journal.update(file.fileId, comments);
     }
 
     public void publishReview(final String reviewComment) {
@@ -214,10 +256,24 @@ public class ReviewPanelController {
                 clearNewComments();
                 view.enablePanel(false);
 
+                final Review review = selectedReview;
+                final int generation = startLoad();
                 TaskUtil.queueTask(project, "Loading review", false, new ThrowableFunction<ProgressIndicator, List<Review.File>>() {
                     @Override
                     public List<Review.File> throwableCall(final ProgressIndicator progressIndicator) throws Exception {
-                        List<Review.File> files = ReviewDataProvider.getInstance(project).files(selectedReview,
+                        if (!attach(generation, progressIndicator)) return null;
+                        ReviewDataProvider dataProvider = ReviewDataProvider.getInstance(project);
+                        CompletableFuture<Void> details = dataProvider.loadDetails(review);
+                        CompletableFuture<CommentIndex> comments = dataProvider.commentIndex(review)
+                                .exceptionally(new Function<Throwable, CommentIndex>() {
+                                    @Override
+                                    public CommentIndex apply(Throwable e) {
+                                        LOG.warn("Unable to load comments of review " + review.id
+                                                + ", loading them per file", e);
+                                        return null;
+                                    }
+                                });
+                        final List<Review.File> files = dataProvider.files(review,
                                 new ReviewDataProvider.Progress() {
                                     @Override
                                     public void progress(String text, float percentage) {
@@ -225,17 +281,168 @@ public class ReviewPanelController {
                                         progressIndicator.setFraction(percentage);
                                     }
                                 });
-                        view.enablePanel(true);
-                        selectedFiles = files;
-                        view.setCurrentReview(selectedFiles);
+                        AsyncReviewBoardClient.await(details);
+                        final CommentIndex index = AsyncReviewBoardClient.await(comments);
+                        final DraftCommentJournal journal = dataProvider.draftJournal(review);
+                        final Map<String, List<Review.File.Comment>> drafts = journal.restore(files);
+                        ApplicationManager.getApplication().invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!transition(generation, LoadState.PREFETCHING)) return;
+                                selectedFiles = files;
+                                commentIndex = index;
+                                draftJournal = journal;
+                                newComments.putAll(drafts);
+                                view.setCurrentReview(files, index);
+                                view.enablePanel(true);
+                                prefetchFiles(generation, files);
+                            }
+                        });
                         return files;
                     }
-                }, null, null);
+                }, null, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (transition(generation, LoadState.FAILED)) view.enablePanel(true);
+                    }
+                });
 
             }
         });
     }
 
+    /**
+     * Supersedes the current load, cancelling all of its tasks.
+     *
+     * @return generation of the new load
+     */
+    private int startLoad() {
+        synchronized (loadLock) {
+            for (ProgressIndicator indicator : loadIndicators) {
+                indicator.cancel();
+            }
+            loadIndicators.clear();
+            hoverIndicator = null;
+            commentIndex = null;
+            loadState = LoadState.LOADING_FILES;
+            return ++loadGeneration;
+        }
+    }
+
+    /**
+     * Ties a task to the load, so that it is cancelled once the load is superseded.
+     *
+     * @return false if the load is already superseded
+     */
+    private boolean attach(int generation, ProgressIndicator indicator) {
+        synchronized (loadLock) {
+            if (generation != loadGeneration) return false;
+            loadIndicators.add(indicator);
+            return true;
+        }
+    }
+
+    /**
+     * @return false if the load is superseded, in which case its results must be dropped
+     */
+    private boolean transition(int generation, LoadState state) {
+        synchronized (loadLock) {
+            if (generation != loadGeneration) return false;
+            LOG.debug("Review load " + generation + " : " + loadState + " -> " + state);
+            loadState = state;
+            return true;
+        }
+    }
+
+    private boolean isCurrent(int generation) {
+        synchronized (loadLock) {
+            return generation == loadGeneration;
+        }
+    }
+
+    /**
+     * Loads contents of review files in background, so that diffs open without waiting for the server.
+     */
+    private void prefetchFiles(final int generation, final List<Review.File> files) {
+        TaskUtil.queueTask(project, "Loading file contents", false, new ThrowableFunction<ProgressIndicator, Void>() {
+            @Override
+            public Void throwableCall(ProgressIndicator progressIndicator) throws Exception {
+                if (!attach(generation, progressIndicator)) return null;
+                List<Future<?>> futures = new ArrayList<>();
+                for (Review.File file : files) {
+                    futures.add(prefetchExecutor.submit(prefetchTask(file, generation, progressIndicator)));
+                }
+                try {
+                    for (int i = 0; i < futures.size(); i++) {
+                        progressIndicator.setFraction((double) i / futures.size());
+                        while (true) {
+                            if (progressIndicator.isCanceled() || !isCurrent(generation)) return null;
+                            try {
+                                futures.get(i).get(100, TimeUnit.MILLISECONDS);
+                                break;
+                            } catch (TimeoutException ignored) {
+                            } catch (ExecutionException e) {
+                                break;
+                            }
+                        }
+                    }
+                    transition(generation, LoadState.LOADED);
+                } finally {
+                    // Drops queued fetches and wakes up the ones waiting for the server
+                    for (Future<?> future : futures) future.cancel(true);
+                }
+                return null;
+            }
+        }, null, null);
+    }
+
+    /**
+     * Prefetches a file of the current load, under an indicator the load cancels once it is superseded.
+     */
+    public void prefetchFile(final Review.File file) {
+        if (file.contentsLoaded) return;
+        int generation;
+        ProgressIndicator indicator;
+        synchronized (loadLock) {
+            // Files shown before the load reached prefetching belong to the previous review
+            if (loadState != LoadState.PREFETCHING && loadState != LoadState.LOADED) return;
+            if (hoverIndicator == null) {
+                hoverIndicator = new EmptyProgressIndicator();
+                loadIndicators.add(hoverIndicator);
+            }
+            generation = loadGeneration;
+            indicator = hoverIndicator;
+        }
+        prefetchExecutor.submit(prefetchTask(file, generation, indicator));
+    }
+
+    /**
+     * Fetches run under the indicator of the prefetch, so that cancelling it aborts their requests as well.
+     * Contents are stored only while the load is current, as the indicator is cancelled before it is superseded.
+     */
+    private Runnable prefetchTask(final Review.File file, final int generation,
+                                  final ProgressIndicator progressIndicator) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (file.contentsLoaded || !isCurrent(generation)) return;
+                ProgressManager.getInstance().executeProcessUnderProgress(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            ReviewDataProvider.getInstance(project).loadContents(file);
+                        } catch (ProcessCanceledException ignored) {
+                        } catch (Exception e) {
+                            if (!progressIndicator.isCanceled()) {
+                                LOG.warn("Unable to prefetch " + file.dstFileName, e);
+                            }
+                        }
+                    }
+                }, progressIndicator);
+            }
+        };
+    }
+
 
     public void updateReviewRequest(final Review selectedReview, final String summary, final String description,
                                     final String targetPeople, final String targetGroup) {
@@ -294,6 +501,9 @@ public class ReviewPanelController {
 
     private void clearNewComments() {
         newComments.clear();
+        DraftCommentJournal journal = draftJournal;
+        draftJournal = null;
+        if (journal != null) journal.clear();
     }
 
     public boolean commentsAvailableForPublish() {
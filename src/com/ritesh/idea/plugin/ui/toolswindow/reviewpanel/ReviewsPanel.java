@@ -39,10 +39,12 @@ import com.intellij.openapi.ui.Splitter;
 import com.intellij.openapi.vcs.FilePath;
 import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.changes.SimpleContentRevision;
+import com.intellij.openapi.vcs.changes.ui.ChangesBrowserNode;
 import com.intellij.ui.GuiUtils;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.table.JBTable;
+import com.ritesh.idea.plugin.reviewboard.CommentIndex;
 import com.ritesh.idea.plugin.reviewboard.Review;
 import com.ritesh.idea.plugin.reviewboard.ReviewDataProvider;
 import com.ritesh.idea.plugin.state.SettingsPage;
@@ -57,13 +59,18 @@ import com.ritesh.idea.plugin.ui.toolswindow.reviewpanel.ReviewPanelController.R
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionAdapter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.tree.TreePath;
 
 /**
  * @author Ritesh
@@ -80,6 +87,7 @@ public class ReviewsPanel extends JPanel {
     private ComboBox repositoryComboBox = new ComboBox(new String[]{"Select Repository"});
     private JBLabel page = new JBLabel();
     private JComponent mainReviewToolbar;
+    private Review.File hoveredFile;
 
     final Logger LOG = Logger.getInstance(ReviewsPanel.class);
 
@@ -107,39 +115,50 @@ public class ReviewsPanel extends JPanel {
         });
     }
 
-    public void setCurrentReview(List<Review.File> files) {
+    /**
+     * @param commentIndex published comments of the review, null if they could not be loaded
+     */
+    public void setCurrentReview(List<Review.File> files, CommentIndex commentIndex) {
         final List<Change> changes = new ArrayList<>();
+        final Map<Change, Integer> commentCounts = new HashMap<>();
         for (Review.File file : files) {
-            FilePath srcFilePath;
-            FilePath patchFilePath;
-            try {
-                Class<?> aClass = Class.forName("com.intellij.openapi.vcs.LocalFilePath");
-                srcFilePath = (FilePath) aClass.getDeclaredConstructor(String.class, boolean.class).newInstance(file.srcFileName, false);
-                patchFilePath = (FilePath) aClass.getDeclaredConstructor(String.class, boolean.class).newInstance(file.dstFileName, false);
-            } catch (Exception e) {
-                try {
-                    srcFilePath = (FilePath) Class.forName("com.intellij.openapi.vcs.FilePathImpl")
-                            .getDeclaredMethod("createNonLocal", String.class, boolean.class)
-                            .invoke(null, file.srcFileName, false);
-                    patchFilePath = (FilePath) Class.forName("com.intellij.openapi.vcs.FilePathImpl")
-                            .getDeclaredMethod("createNonLocal", String.class, boolean.class)
-                            .invoke(null, file.dstFileName, false);
-                } catch (Exception e1) {
-                    throw new RuntimeException(e1);
-                }
-            }
-            SimpleContentRevision original = new SimpleContentRevision(file.srcFileContents, srcFilePath, file.sourceRevision);
-            SimpleContentRevision patched = new SimpleContentRevision(file.dstFileContents, patchFilePath, "New Change");
-            changes.add(new Change(original, patched));
+            Change change = createChange(file);
+            changes.add(change);
+            if (commentIndex != null) commentCounts.put(change, commentIndex.count(file.fileId));
         }
         ApplicationManager.getApplication().invokeLater(new Runnable() {
             public void run() {
-                changesTree.setChangesToDisplay(changes);
+                changesTree.setChangesToDisplay(changes, commentCounts);
                 GuiUtils.enableChildren(true, ReviewsPanel.this);
             }
         });
     }
 
+    private Change createChange(Review.File file) {
+        FilePath srcFilePath;
+        FilePath patchFilePath;
+        try {
+            Class<?> aClass = Class.forName("com.intellij.openapi.vcs.LocalFilePath");
+            srcFilePath = (FilePath) aClass.getDeclaredConstructor(String.class, boolean.class).newInstance(file.srcFileName, false);
+            patchFilePath = (FilePath) aClass.getDeclaredConstructor(String.class, boolean.class).newInstance(file.dstFileName, false);
+        } catch (Exception e) {
+            try {
+                srcFilePath = (FilePath) Class.forName("com.intellij.openapi.vcs.FilePathImpl")
+                        .getDeclaredMethod("createNonLocal", String.class, boolean.class)
+                        .invoke(null, file.srcFileName, false);
+                patchFilePath = (FilePath) Class.forName("com.intellij.openapi.vcs.FilePathImpl")
+                        .getDeclaredMethod("createNonLocal", String.class, boolean.class)
+                        .invoke(null, file.dstFileName, false);
+            } catch (Exception e1) {
+                throw new RuntimeException(e1);
+            }
+        }
+        // Contents may not be loaded yet, changes are recreated from the file when a diff is shown
+        SimpleContentRevision original = new SimpleContentRevision(file.srcFileContents, srcFilePath, file.sourceRevision);
+        SimpleContentRevision patched = new SimpleContentRevision(file.dstFileContents, patchFilePath, "New Change");
+        return new Change(original, patched);
+    }
+
     public void updateRepositories(final List<String> repositories, final String defaultRepository) {
         ApplicationManager.getApplication().invokeLater(new Runnable() {
             @Override
@@ -186,11 +205,30 @@ public class ReviewsPanel extends JPanel {
 
     private void loadFileComments() {
         final Change selectedChange = changesTree.getSelectedChanges().get(0);
+        Review.File file = fileFor(selectedChange);
+        if (file != null) controller.loadComments(file);
+    }
+
+    private Review.File fileFor(Change change) {
         List<Review.File> selectedFiles = controller.selectedFiles();
+        if (selectedFiles == null || change.getBeforeRevision() == null) return null;
         for (Review.File file : selectedFiles) {
-            if (file.srcFileName.equals(selectedChange.getBeforeRevision().getFile().getPath())) {
-                controller.loadComments(file);
-                break;
+            if (file.srcFileName.equals(change.getBeforeRevision().getFile().getPath())) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private void prefetchHoveredFile(MouseEvent e) {
+        TreePath path = changesTree.getPathForLocation(e.getX(), e.getY());
+        if (path == null || !(path.getLastPathComponent() instanceof ChangesBrowserNode)) return;
+        Object userObject = ((ChangesBrowserNode) path.getLastPathComponent()).getUserObject();
+        if (userObject instanceof Change) {
+            Review.File file = fileFor((Change) userObject);
+            if (file != null && file != hoveredFile) {
+                hoveredFile = file;
+                controller.prefetchFile(file);
             }
         }
     }
@@ -199,8 +237,7 @@ public class ReviewsPanel extends JPanel {
         ApplicationManager.getApplication().invokeLater(new Runnable() {
             @Override
             public void run() {
-                final Change selectedChange = changesTree.getSelectedChanges().get(0);
-                DiffRequest request = new ReviewDiffRequest(project, selectedChange);
+                DiffRequest request = new ReviewDiffRequest(project, createChange(file));
                 final CommentsDiffTool commentsDiffTool = new CommentsDiffTool(file, comments);
                 commentsDiffTool.setActionListener(new ActionListener() {
                     @Override
@@ -271,6 +308,12 @@ public class ReviewsPanel extends JPanel {
                 loadFileComments();
             }
         });
+        changesTree.addMouseMotionListener(new MouseMotionAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                prefetchHoveredFile(e);
+            }
+        });
         new AnAction() {
             @Override
             public void actionPerformed(AnActionEvent anActionEvent) {
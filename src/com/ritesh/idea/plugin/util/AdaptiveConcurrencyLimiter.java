@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests to a server with additive increase / multiplicative decrease.
+ * The limit grows by one every full window of fast responses, is trimmed when latency climbs well above the best
+ * observed latency and is halved when the server drops a request (error, 429 or 503). It never exceeds the
+ * configured ceiling.
+ */
+public class AdaptiveConcurrencyLimiter {
+    public static final int INITIAL_LIMIT = 4;
+
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double DROP_BACKOFF = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double MIN_LATENCY_DECAY = 1.01;
+    // How often a queued request checks whether it was cancelled
+    private static final long CANCEL_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int maxLimit;
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private int maxQueued;
+    private long minLatency = Long.MAX_VALUE;
+    private long acquired;
+    private long waited;
+    private long waitTime;
+    private long dropped;
+
+    public class Permit {
+        private final long startTime = System.nanoTime();
+        private volatile long latency = -1;
+        private boolean released;
+
+        /**
+         * Response headers arrived. The time until now is the latency of the server, reading the body only
+         * depends on its size.
+         */
+        public void responded() {
+            if (latency < 0) latency = System.nanoTime() - startTime;
+        }
+
+        /**
+         * Server answered normally, latency of the request is used to adjust the limit.
+         */
+        public void success() {
+            release(false, latency >= 0 ? latency : System.nanoTime() - startTime);
+        }
+
+        /**
+         * Server failed or rejected the request because it is overloaded.
+         */
+        public void dropped() {
+            release(true, 0);
+        }
+
+        /**
+         * Request was abandoned by the caller, the limit is left as is.
+         */
+        public void cancelled() {
+            lock.lock();
+            try {
+                if (released) return;
+                released = true;
+                inFlight--;
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(boolean drop, long latency) {
+            lock.lock();
+            try {
+                if (released) return;
+                released = true;
+                onRelease(drop, latency);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter(int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.min(INITIAL_LIMIT, this.maxLimit);
+    }
+
+    /**
+     * Blocks until the request may be sent. The returned permit has to be released exactly once.
+     *
+     * @param indicator checked for cancellation while waiting, the current one if null
+     */
+    public Permit acquire(ProgressIndicator indicator) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            acquired++;
+            if (inFlight >= (int) limit) {
+                long start = System.nanoTime();
+                queued++;
+                maxQueued = Math.max(maxQueued, queued);
+                try {
+                    while (inFlight >= (int) limit) {
+                        if (indicator != null) {
+                            indicator.checkCanceled();
+                        } else {
+                            ProgressManager.checkCanceled();
+                        }
+                        available.awaitNanos(CANCEL_CHECK_INTERVAL);
+                    }
+                } finally {
+                    queued--;
+                    waited++;
+                    waitTime += System.nanoTime() - start;
+                }
+            }
+            inFlight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRelease(boolean drop, long latency) {
+        inFlight--;
+        if (drop) {
+            dropped++;
+            limit = Math.max(1, limit * DROP_BACKOFF);
+        } else {
+            // Slowly forget the best latency so that a change of network does not pin the limit down
+            minLatency = minLatency == Long.MAX_VALUE ? latency : Math.min(latency, (long) (minLatency * MIN_LATENCY_DECAY));
+            if (latency > minLatency * LATENCY_TOLERANCE) {
+                limit = Math.max(1, limit * LATENCY_BACKOFF);
+            } else if (inFlight + 1 >= (int) limit) {
+                // Only grow when the current limit is actually used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+        available.signalAll();
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        lock.lock();
+        try {
+            this.maxLimit = Math.max(1, maxLimit);
+            limit = Math.min(limit, this.maxLimit);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "AdaptiveConcurrencyLimiter{" +
+                    "limit=" + (int) limit +
+                    ", maxLimit=" + maxLimit +
+                    ", inFlight=" + inFlight +
+                    ", queued=" + queued +
+                    ", maxQueued=" + maxQueued +
+                    ", acquired=" + acquired +
+                    ", waited=" + waited +
+                    ", averageWaitMs=" + (waited == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitTime / waited)) +
+                    ", dropped=" + dropped +
+                    '}';
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Ref;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Size capped on-disk store of immutable text contents. Entries are named by the hash of their key, read into memory
+ * in one go and evicted least recently used first. Files are never kept open or mapped, which would keep windows from
+ * replacing or deleting them. Access time is kept in the file modification time so that
+ * the eviction order survives restarts.
+ */
+public class DiskContentCache {
+    private static final Logger LOG = Logger.getInstance(DiskContentCache.class);
+
+    public static final int DEFAULT_MAX_SIZE_MB = 256;
+
+    private static final byte NO_CONTENT = 0;
+    private static final byte CONTENT = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final Map<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    // Files which could not be deleted yet, still counted in the size
+    private final Map<String, Long> undeleted = new HashMap<>();
+    private long maxSize;
+    private long size;
+
+    public DiskContentCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        load();
+    }
+
+    private synchronized void load() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.warn("Unable to create content cache directory " + directory);
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            index.put(file.getName(), file.length());
+            size += file.length();
+        }
+        evict();
+    }
+
+    /**
+     * @return null when the key is not cached, otherwise a reference to the cached (possibly null) content
+     */
+    public Ref<String> get(String key) {
+        String name = fileName(key);
+        synchronized (this) {
+            if (index.get(name) == null) return null;
+        }
+        File file = new File(directory, name);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            file.setLastModified(System.currentTimeMillis());
+            if (!buffer.hasRemaining() || buffer.get() == NO_CONTENT) return Ref.create(null);
+            return Ref.create(StandardCharsets.UTF_8.decode(buffer).toString());
+        } catch (NoSuchFileException e) {
+            // Evicted meanwhile, or deleted behind the back of the cache
+            synchronized (this) {
+                if (!file.exists()) {
+                    Long length = index.remove(name);
+                    if (length != null) size -= length;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Unable to read cached content " + file, e);
+            remove(name);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the key is cached, without reading the content or counting as an access
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(fileName(key));
+    }
+
+    public void put(String key, String content) {
+        String name = fileName(key);
+        File file = new File(directory, name);
+        // A temporary file of its own, concurrent puts of the same key must not write to the same one
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile(directory.toPath(), name, TEMP_SUFFIX);
+        } catch (IOException e) {
+            LOG.warn("Unable to write cached content " + file, e);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{content == null ? NO_CONTENT : CONTENT}));
+            if (content != null) channel.write(StandardCharsets.UTF_8.encode(content));
+        } catch (IOException e) {
+            LOG.warn("Unable to write cached content " + file, e);
+            deleteTempFile(tempFile);
+            return;
+        }
+        try {
+            Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Unable to write cached content " + file, e);
+            deleteTempFile(tempFile);
+            // The previous content may be left, it is not served as this one
+            remove(name);
+            return;
+        }
+        synchronized (this) {
+            Long oldSize = index.put(name, file.length());
+            size += file.length() - (oldSize != null ? oldSize : 0);
+            // An old file waiting to be deleted was replaced by this one
+            Long undeletedSize = undeleted.remove(name);
+            if (undeletedSize != null) size -= undeletedSize;
+            evict();
+        }
+    }
+
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private synchronized void remove(String name) {
+        Long length = index.remove(name);
+        delete(name, length != null ? length : 0);
+    }
+
+    private synchronized void evict() {
+        // Retried first, their space is only freed once they are gone
+        for (Map.Entry<String, Long> entry : new ArrayList<>(undeleted.entrySet())) {
+            undeleted.remove(entry.getKey());
+            delete(entry.getKey(), entry.getValue());
+        }
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            delete(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Deletes the file of an entry which is no longer indexed. Its size is only given back once it is gone, a file
+     * which cannot be deleted, e.g. while another process reads it on windows, is tried again on the next eviction.
+     */
+    private void delete(String name, long length) {
+        File file = new File(directory, name);
+        if (file.delete() || !file.exists()) {
+            size -= length;
+        } else {
+            LOG.warn("Unable to delete cached content " + file);
+            undeleted.put(name, length);
+        }
+    }
+
+    private static void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to delete " + tempFile, e);
+        }
+    }
+
+    private static String fileName(String key) {
+        return DigestUtils.sha1Hex(key);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import com.intellij.util.net.ssl.CertificateManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import javax.net.ssl.SSLContext;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+/**
+ * HTTP/2 transport on the http client of java 11, which multiplexes all requests to a server over one connection.
+ * The plugin is built for java 8, so the client is driven through reflection and is only available when the IDE
+ * runs on java 11 or later. Only GET requests are multiplexed, everything else goes through the fallback transport.
+ */
+public class Http2Transport implements HttpTransport {
+    private static final ProtocolVersion HTTP_2_0 = new ProtocolVersion("HTTP", 2, 0);
+    // The java client waits for the response headers without any limit otherwise
+    private static final long RESPONSE_TIMEOUT = 60000;
+    // Headers which the java client sets itself and refuses to take from the caller
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+    private final HttpTransport fallback;
+    private final Object client;
+    private final Object inputStreamHandler;
+    private final Method newRequestBuilder;
+    private final Method setHeader;
+    private final Method timeout;
+    private final Method buildRequest;
+    private final Method sendAsync;
+    private final Method statusCode;
+    private final Method headers;
+    private final Method headersMap;
+    private final Method body;
+
+    public static boolean isSupported() {
+        try {
+            Class.forName("java.net.http.HttpClient");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Http2Transport(HttpTransport fallback) throws ReflectiveOperationException {
+        this.fallback = fallback;
+        Class<?> clientClass = Class.forName("java.net.http.HttpClient");
+        Class<?> clientBuilderClass = Class.forName("java.net.http.HttpClient$Builder");
+        Class<? extends Enum> versionClass = (Class<? extends Enum>) Class.forName("java.net.http.HttpClient$Version");
+        Class<?> requestClass = Class.forName("java.net.http.HttpRequest");
+        Class<?> requestBuilderClass = Class.forName("java.net.http.HttpRequest$Builder");
+        Class<?> responseClass = Class.forName("java.net.http.HttpResponse");
+        Class<?> bodyHandlerClass = Class.forName("java.net.http.HttpResponse$BodyHandler");
+        Class<?> bodyHandlersClass = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+        Class<?> headersClass = Class.forName("java.net.http.HttpHeaders");
+
+        Object builder = clientClass.getMethod("newBuilder").invoke(null);
+        clientBuilderClass.getMethod("version", versionClass).invoke(builder, Enum.valueOf(versionClass, "HTTP_2"));
+        clientBuilderClass.getMethod("sslContext", SSLContext.class)
+                .invoke(builder, CertificateManager.getInstance().getSslContext());
+        clientBuilderClass.getMethod("connectTimeout", Duration.class)
+                .invoke(builder, Duration.ofMillis(HttpRequestBuilder.CONNECT_TIMEOUT));
+        client = clientBuilderClass.getMethod("build").invoke(builder);
+
+        inputStreamHandler = bodyHandlersClass.getMethod("ofInputStream").invoke(null);
+        newRequestBuilder = requestClass.getMethod("newBuilder", URI.class);
+        setHeader = requestBuilderClass.getMethod("setHeader", String.class, String.class);
+        timeout = requestBuilderClass.getMethod("timeout", Duration.class);
+        buildRequest = requestBuilderClass.getMethod("build");
+        sendAsync = clientClass.getMethod("sendAsync", requestClass, bodyHandlerClass);
+        statusCode = responseClass.getMethod("statusCode");
+        headers = responseClass.getMethod("headers");
+        headersMap = headersClass.getMethod("map");
+        body = responseClass.getMethod("body");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(final HttpRequestBase request, ResponseHandler<? extends T> handler) throws IOException {
+        if (!(request instanceof HttpGet)) {
+            return fallback.execute(request, handler);
+        }
+        // setCancellable is ignored once the request is aborted, it would run to completion
+        if (request.isAborted()) throw new InterruptedIOException("Request aborted " + request.getURI());
+
+        final CompletableFuture<?> exchange;
+        try {
+            Object builder = newRequestBuilder.invoke(null, request.getURI());
+            timeout.invoke(builder, Duration.ofMillis(RESPONSE_TIMEOUT));
+            for (Header header : request.getAllHeaders()) {
+                if (RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ENGLISH))) continue;
+                setHeader.invoke(builder, header.getName(), header.getValue());
+            }
+            exchange = (CompletableFuture<?>) sendAsync.invoke(client, buildRequest.invoke(builder), inputStreamHandler);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to send " + request.getURI(), unwrap(e));
+        }
+        // Cancelling a future of the java 11 client does not stop the exchange. Only the waiting is cancelled, and the
+        // body of a response arriving after an abort is closed, which resets its stream.
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        exchange.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object response, Throwable error) {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else if (!future.complete(response) || request.isAborted()) {
+                    closeBody(response);
+                }
+            }
+        });
+        // Aborting the request cancels the exchange, see HttpRequestBuilder#abortRequests
+        request.setCancellable(new Cancellable() {
+            @Override
+            public boolean cancel() {
+                return future.cancel(true);
+            }
+        });
+        // Aborted while the cancellable was being set, which is then ignored
+        if (request.isAborted()) future.cancel(true);
+
+        Object response;
+        try {
+            response = future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending " + request.getURI());
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Request aborted " + request.getURI());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Unable to send " + request.getURI(), e.getCause());
+        }
+
+        try (final InputStream content = (InputStream) body.invoke(response)) {
+            request.setCancellable(new Cancellable() {
+                @Override
+                public boolean cancel() {
+                    try {
+                        content.close();
+                    } catch (IOException ignored) {
+                    }
+                    return true;
+                }
+            });
+            if (request.isAborted()) content.close();
+            return handler.handleResponse(toHttpResponse(response, content));
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to read response of " + request.getURI(), unwrap(e));
+        }
+    }
+
+    private void closeBody(Object response) {
+        try {
+            ((InputStream) body.invoke(response)).close();
+        } catch (ReflectiveOperationException | IOException ignored) {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BasicHttpResponse toHttpResponse(Object response, InputStream content) throws ReflectiveOperationException {
+        int status = (Integer) statusCode.invoke(response);
+        BasicHttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(HTTP_2_0, status,
+                EnglishReasonPhraseCatalog.INSTANCE.getReason(status, Locale.ENGLISH)));
+        Map<String, List<String>> responseHeaders = (Map<String, List<String>>) headersMap.invoke(headers.invoke(response));
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            if (header.getKey().startsWith(":")) continue;
+            for (String value : header.getValue()) {
+                httpResponse.addHeader(header.getKey(), value);
+            }
+        }
+
+        Header contentLength = httpResponse.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+        InputStreamEntity entity = new InputStreamEntity(content,
+                contentLength != null ? Long.parseLong(contentLength.getValue()) : -1);
+        entity.setContentType(httpResponse.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+        entity.setContentEncoding(httpResponse.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        httpResponse.setEntity(entity);
+        return httpResponse;
+    }
+
+    private static Throwable unwrap(ReflectiveOperationException e) {
+        return e instanceof InvocationTargetException ? e.getCause() : e;
+    }
+
+    /**
+     * The java client has nothing to close, its connections are dropped once idle. The fallback is owned by the
+     * caller.
+     */
+    @Override
+    public void close() throws IOException {
+    }
+}
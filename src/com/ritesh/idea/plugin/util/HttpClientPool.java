@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import com.intellij.util.net.ssl.CertificateManager;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Long lived http client with a bounded keep-alive connection pool. All requests to a server share it, so
+ * connections and TLS sessions (cached by the shared IDE ssl context) are reused instead of being set up per call.
+ */
+public class HttpClientPool implements HttpTransport {
+    public static final int DEFAULT_MAX_PER_ROUTE = 8;
+    public static final int MAX_TOTAL = 32;
+
+    private static final long CONNECTION_TTL = 5 * 60 * 1000;
+    private static final long MAX_IDLE_TIME = 60 * 1000;
+    private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private volatile boolean closed;
+
+    public HttpClientPool(int maxPerRoute) {
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(CertificateManager.getInstance().getSslContext()))
+                .build();
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactories, null, null, null,
+                CONNECTION_TTL, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(Math.max(MAX_TOTAL, maxPerRoute));
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+        client = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                // Bodies are decoded by HttpRequestBuilder, which also counts their compressed size
+                .disableContentCompression()
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(HttpRequestBuilder.CONNECT_TIMEOUT).build())
+                // Connections are not bound to a user principal, let every request pick any pooled connection
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(MAX_IDLE_TIME, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public CloseableHttpClient getClient() {
+        if (closed) throw new IllegalStateException("Http client pool is closed");
+        return client;
+    }
+
+    @Override
+    public <T> T execute(HttpRequestBase request, ResponseHandler<? extends T> handler) throws IOException {
+        return getClient().execute(request, handler);
+    }
+
+    public PoolStats getStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        client.close();
+    }
+
+    @Override
+    public String toString() {
+        PoolStats stats = getStats();
+        return "HttpClientPool{" +
+                "leased=" + stats.getLeased() +
+                ", available=" + stats.getAvailable() +
+                ", pending=" + stats.getPending() +
+                ", max=" + stats.getMax() +
+                '}';
+    }
+}
@@ -17,47 +17,88 @@
 package com.ritesh.idea.plugin.util;
 
 import com.google.common.io.CharStreams;
-import com.google.gson.Gson;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.net.ssl.CertificateManager;
 import com.ritesh.idea.plugin.exception.UnexpectedResponseException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import org.apache.commons.lang.StringUtils;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 
 /**
  * @author Ritesh
  */
 public class HttpRequestBuilder {
     public static final int CONNECT_TIMEOUT = 15000;
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    // Requests being sent on behalf of a progress indicator, aborted when it is cancelled
+    private static final Map<ProgressIndicator, Set<HttpRequestBase>> inProgress = new HashMap<>();
 
     private HttpRequestBase request;
     private URIBuilder urlBuilder = new URIBuilder();
     private String route = "";
     private List<NameValuePair> formParams = new ArrayList<>();
     private String fileParam;
-    private String fileName;
-    private byte[] fileBytes;
+    private ContentBody fileBody;
     private RequestConfig requestConfig;
+    private HttpTransport transport;
+    private HttpResponseCache cache;
+    private String cacheUser;
+    private SingleFlight<String, SharedResponse> inFlight;
+    private String inFlightUser;
+    private URI uri;
+    private AdaptiveConcurrencyLimiter limiter;
+    private TransferStatistics statistics;
 
     public HttpRequestBuilder route(String value) {
         route = route + "/" + value;
@@ -81,8 +122,16 @@ public class HttpRequestBuilder {
 
     public HttpRequestBuilder file(String param, String name, byte[] bytes) {
         fileParam = param;
-        fileName = name;
-        fileBytes = bytes;
+        fileBody = new ByteArrayBody(bytes, ContentType.MULTIPART_FORM_DATA, name);
+        return this;
+    }
+
+    /**
+     * Streams the file into the request body while it is sent, instead of holding it in memory.
+     */
+    public HttpRequestBuilder file(String param, String name, File file) {
+        fileParam = param;
+        fileBody = new FileBody(file, ContentType.MULTIPART_FORM_DATA, name);
         return this;
     }
 
@@ -91,6 +140,46 @@ public class HttpRequestBuilder {
         return this;
     }
 
+    public HttpRequestBuilder client(HttpTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Revalidates GET responses against the given cache, entries are kept separately for each user.
+     */
+    public HttpRequestBuilder cache(HttpResponseCache cache, String user) {
+        this.cache = cache;
+        this.cacheUser = user;
+        return this;
+    }
+
+    /**
+     * Shares the response of an identical GET already in flight instead of sending the request again. Joined callers
+     * get their own copy of the body, and send the request again when the caller which sent it is cancelled.
+     */
+    public HttpRequestBuilder coalesce(SingleFlight<String, SharedResponse> inFlight, String user) {
+        this.inFlight = inFlight;
+        this.inFlightUser = user;
+        return this;
+    }
+
+    /**
+     * Waits for a permit of the given limiter before sending the request.
+     */
+    public HttpRequestBuilder limit(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+        return this;
+    }
+
+    /**
+     * Records the compressed and decompressed size of the response.
+     */
+    public HttpRequestBuilder statistics(TransferStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
     public HttpRequestBuilder header(String name, String value) {
         request.addHeader(name, value);
         return this;
@@ -118,23 +207,32 @@ public class HttpRequestBuilder {
         return builder;
     }
 
-    private HttpRequestBase getHttpRequest() throws URISyntaxException, UnsupportedEncodingException {
-        if (!route.isEmpty()) {
-            String path = urlBuilder.getPath() + route;
-            path = path.replace("//", "/");
-            urlBuilder.setPath(path);
+    public URI uri() throws URISyntaxException {
+        if (uri == null) {
+            if (!route.isEmpty()) {
+                String path = urlBuilder.getPath() + route;
+                path = path.replace("//", "/");
+                urlBuilder.setPath(path);
+            }
+            uri = urlBuilder.build();
+        }
+        return uri;
+    }
+
+    private HttpRequestBase getHttpRequest(ProgressIndicator indicator) throws URISyntaxException,
+            UnsupportedEncodingException {
+        request.setURI(uri());
+        if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
         }
-        request.setURI(urlBuilder.build());
         if (request instanceof HttpPost) {
             if (fileParam != null) {
                 MultipartEntityBuilder builder = MultipartEntityBuilder.create();
                 for (NameValuePair formParam : formParams) {
                     builder.addTextBody(formParam.getName(), formParam.getValue());
                 }
-                HttpEntity entity = builder
-                        .addBinaryBody(fileParam, fileBytes, ContentType.MULTIPART_FORM_DATA, fileName)
-                        .build();
-                ((HttpPost) request).setEntity(entity);
+                HttpEntity entity = builder.addPart(fileParam, fileBody).build();
+                ((HttpPost) request).setEntity(indicator != null ? new UploadProgressEntity(entity, indicator) : entity);
             } else if (!formParams.isEmpty()) {
                 ((HttpPost) request).setEntity(new UrlEncodedFormEntity(formParams));
             }
@@ -148,37 +246,489 @@ public class HttpRequestBuilder {
     }
 
 
-    public <T> T asJson(Class<T> clazz) throws IOException, URISyntaxException {
-        try (CloseableHttpClient client = HttpClientBuilder.create()
-                .setDefaultRequestConfig(requestConfig)
-                .setSslcontext(CertificateManager.getInstance().getSslContext())
-                .build()) {
-            HttpRequestBase request = getHttpRequest();
-            CloseableHttpResponse response = client.execute(request);
-            String content = CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
+    public <T> T asJson(final Class<T> clazz) throws IOException, URISyntaxException {
+        return execute(new ResponseHandler<T>() {
+            @Override
+            public T handleResponse(HttpResponse response) throws IOException {
+                try {
+                    T result = Json.fromEntity(response.getEntity(), clazz);
+                    if (result == null) throw new Exception("Empty response recieved");
+                    return result;
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new UnexpectedResponseException("Status: " + response.getStatusLine(),
+                            response.getStatusLine().getStatusCode(), e);
+                }
+            }
+        });
+    }
+
+
+    public String asString() throws IOException, URISyntaxException {
+        return execute(new ResponseHandler<String>() {
+            @Override
+            public String handleResponse(HttpResponse response) throws IOException {
+                return CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
+            }
+        });
+    }
+
+    /**
+     * Executes the request on the shared transport when one is set, otherwise on a client created for this call only.
+     * The response entity is always consumed so that the connection goes back to the pool.
+     */
+    public <T> T execute(final ResponseHandler<? extends T> handler) throws IOException, URISyntaxException {
+        if (inFlight == null || !(request instanceof HttpGet)) {
+            return doExecute(handler);
+        }
+        Header accept = request.getFirstHeader(HttpHeaders.ACCEPT);
+        String key = inFlightUser + " " + uri() + (accept != null ? " " + accept.getValue() : "");
+        while (true) {
+            final Ref<T> result = new Ref<>();
+            final Ref<Exception> failure = new Ref<>();
+            final Ref<Boolean> led = Ref.create(false);
+            SharedResponse shared;
             try {
-                if (StringUtils.isEmpty(content)) throw new Exception("Empty response recieved");
-                return new Gson().fromJson(content, clazz);
+                shared = inFlight.execute(key, new Callable<SharedResponse>() {
+                    @Override
+                    public SharedResponse call() throws Exception {
+                        led.set(true);
+                        return lead(handler, result, failure);
+                    }
+                });
+            } catch (LeaderCancelledException e) {
+                if (led.get()) throw rethrow(e.getCause());
+                // Cancelled by the indicator of the caller which sent it, this caller still wants the response
+                ProgressManager.checkCanceled();
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + key);
             } catch (Exception e) {
-                throw new UnexpectedResponseException("Status: " + response.getStatusLine(), e);
+                throw rethrow(e);
             }
+            if (led.get()) {
+                if (failure.get() != null) throw rethrow(failure.get());
+                return result.get();
+            }
+            // Every caller handles its own copy of the body, so no one shares a mutable result
+            if (shared.hasEntity && shared.body == null) return doExecute(handler);
+            return shared.replay(handler);
         }
     }
 
+    /**
+     * Sends the request for the callers of a coalesced GET. The response is kept for the others even when the
+     * handler of this caller fails on it, their handlers may accept it.
+     */
+    private <T> SharedResponse lead(final ResponseHandler<? extends T> handler, Ref<T> result,
+                                    final Ref<Exception> failure) throws Exception {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        final Ref<SharedResponse> shared = new Ref<>();
+        try {
+            result.set(doExecute(new ResponseHandler<T>() {
+                @Override
+                public T handleResponse(HttpResponse response) throws IOException {
+                    CopyingEntity copy = null;
+                    if (response.getEntity() != null) {
+                        copy = new CopyingEntity(response.getEntity(), HttpResponseCache.MAX_ENTRY_SIZE);
+                        response.setEntity(copy);
+                    }
+                    try {
+                        return handler.handleResponse(response);
+                    } finally {
+                        shared.set(new SharedResponse(response, copy));
+                    }
+                }
+            }));
+        } catch (Exception e) {
+            if (indicator != null && indicator.isCanceled()) throw new LeaderCancelledException(e);
+            if (shared.get() == null) throw e;
+            failure.set(e);
+        }
+        return shared.get();
+    }
 
-    public String asString() throws IOException, URISyntaxException {
-        try (CloseableHttpClient client = HttpClientBuilder.create()
-                .setSslcontext(CertificateManager.getInstance().getSslContext())
-                .setDefaultRequestConfig(requestConfig)
-                .build()) {
-            HttpRequestBase request = getHttpRequest();
-            CloseableHttpResponse response = client.execute(request);
-            return CharStreams.toString(new InputStreamReader(response.getEntity().getContent()));
+    private static IOException rethrow(Throwable e) throws URISyntaxException {
+        if (e instanceof IOException) return (IOException) e;
+        if (e instanceof URISyntaxException) throw (URISyntaxException) e;
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        return new IOException(e);
+    }
+
+    /**
+     * Decoded response of a coalesced GET, replayed to each caller which joined it.
+     */
+    public static class SharedResponse {
+        private final StatusLine statusLine;
+        private final Header[] headers;
+        private final String contentType;
+        private final boolean hasEntity;
+        private final byte[] body;
+
+        SharedResponse(HttpResponse response, CopyingEntity entity) {
+            statusLine = response.getStatusLine();
+            headers = response.getAllHeaders();
+            hasEntity = entity != null;
+            contentType = entity != null && entity.getContentType() != null ? entity.getContentType().getValue() : null;
+            // null when too large to be kept, the joined callers send the request themselves then
+            body = entity != null ? entity.body() : null;
+        }
+
+        <T> T replay(ResponseHandler<? extends T> handler) throws IOException {
+            BasicHttpResponse response = new BasicHttpResponse(statusLine);
+            response.setHeaders(headers);
+            if (hasEntity) {
+                ByteArrayEntity entity = new ByteArrayEntity(body);
+                entity.setContentType(contentType);
+                response.setEntity(entity);
+            }
+            return handler.handleResponse(response);
+        }
+    }
+
+    /**
+     * Failure of a coalesced request caused by the cancellation of the caller which sent it.
+     */
+    private static class LeaderCancelledException extends Exception {
+        LeaderCancelledException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private <T> T doExecute(ResponseHandler<? extends T> handler) throws IOException, URISyntaxException {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        if (indicator != null) indicator.checkCanceled();
+        HttpRequestBase request = getHttpRequest(indicator);
+        if (cache != null && request instanceof HttpGet) {
+            handler = this.<T>cachingHandler(request, handler);
+        }
+        // Outermost, so that the cache and the caller only see decoded bodies
+        handler = this.<T>decodingHandler(TransferStatistics.endpoint(request.getMethod(), request.getURI()), handler);
+        if (limiter == null) {
+            return send(request, handler, indicator);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = limiter.acquire(indicator);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send " + request.getURI());
+        }
+        try {
+            T result = send(request, this.<T>limitingHandler(permit, handler), indicator);
+            permit.success();
+            return result;
+        } finally {
+            // No-op when already released, otherwise the request was aborted or failed
+            if (indicator != null && indicator.isCanceled()) {
+                permit.cancelled();
+            } else {
+                permit.dropped();
+            }
+        }
+    }
+
+    /**
+     * Reports the time to the response headers and overload responses to the limiter before they are handled.
+     */
+    private <T> ResponseHandler<T> limitingHandler(final AdaptiveConcurrencyLimiter.Permit permit,
+                                                   final ResponseHandler<? extends T> handler) {
+        return new ResponseHandler<T>() {
+            @Override
+            public T handleResponse(HttpResponse response) throws IOException {
+                permit.responded();
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == 429) {
+                    permit.dropped();
+                }
+                return handler.handleResponse(response);
+            }
+        };
+    }
+
+    /**
+     * Decompresses gzip and deflate bodies while they are read, counting bytes before and after decoding.
+     */
+    private <T> ResponseHandler<T> decodingHandler(final String endpoint, final ResponseHandler<? extends T> handler) {
+        return new ResponseHandler<T>() {
+            @Override
+            public T handleResponse(HttpResponse response) throws IOException {
+                HttpEntity entity = response.getEntity();
+                if (entity == null) return handler.handleResponse(response);
+
+                CountingEntity wire = new CountingEntity(entity, false);
+                CountingEntity decoded = wire;
+                Header encoding = entity.getContentEncoding();
+                String coding = encoding != null ? encoding.getValue().trim().toLowerCase(Locale.ENGLISH) : "";
+                if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                    decoded = new CountingEntity(new GzipDecompressingEntity(wire), true);
+                } else if (coding.equals("deflate")) {
+                    decoded = new CountingEntity(new DeflateDecompressingEntity(wire), true);
+                }
+                if (decoded != wire) {
+                    response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                    response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                }
+                response.setEntity(decoded);
+                try {
+                    return handler.handleResponse(response);
+                } finally {
+                    if (statistics != null) statistics.record(endpoint, wire.getCount(), decoded.getCount());
+                }
+            }
+        };
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper {
+        private final boolean decoded;
+        private CountingInputStream content;
+
+        CountingEntity(HttpEntity entity, boolean decoded) {
+            super(entity);
+            this.decoded = decoded;
+        }
+
+        @Override
+        public synchronized InputStream getContent() throws IOException {
+            if (content == null) content = new CountingInputStream(wrappedEntity.getContent());
+            return content;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return decoded ? null : super.getContentEncoding();
+        }
+
+        @Override
+        public long getContentLength() {
+            return decoded ? -1 : super.getContentLength();
+        }
+
+        synchronized long getCount() {
+            return content != null ? content.getByteCount() : 0;
+        }
+    }
+
+    /**
+     * Reports how much of the body is written to the indicator of the request.
+     */
+    private static class UploadProgressEntity extends HttpEntityWrapper {
+        private final ProgressIndicator indicator;
+
+        UploadProgressEntity(HttpEntity entity, ProgressIndicator indicator) {
+            super(entity);
+            this.indicator = indicator;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            final long length = getContentLength();
+            if (length > 0) indicator.setIndeterminate(false);
+            wrappedEntity.writeTo(new FilterOutputStream(outStream) {
+                private long written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    progress(1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    progress(len);
+                }
+
+                private void progress(int count) {
+                    written += count;
+                    if (length > 0) {
+                        indicator.setFraction((double) written / length);
+                        indicator.setText2("Uploaded " + StringUtil.formatFileSize(written) + " of "
+                                + StringUtil.formatFileSize(length));
+                    } else {
+                        indicator.setText2("Uploaded " + StringUtil.formatFileSize(written));
+                    }
+                }
+            });
+        }
+    }
+
+    private <T> T send(HttpRequestBase request, ResponseHandler<? extends T> handler,
+                       ProgressIndicator indicator) throws IOException {
+        if (indicator != null) register(indicator, request);
+        try {
+            if (transport != null) {
+                return transport.execute(request, handler);
+            }
+            try (CloseableHttpClient client = HttpClientBuilder.create()
+                    .disableContentCompression()
+                    .setDefaultRequestConfig(requestConfig)
+                    .setSslcontext(CertificateManager.getInstance().getSslContext())
+                    .build()) {
+                return client.execute(request, handler);
+            }
+        } finally {
+            if (indicator != null) unregister(indicator, request);
+        }
+    }
+
+    private static void register(ProgressIndicator indicator, HttpRequestBase request) {
+        synchronized (inProgress) {
+            Set<HttpRequestBase> requests = inProgress.get(indicator);
+            if (requests == null) inProgress.put(indicator, requests = new HashSet<>());
+            requests.add(request);
+        }
+        // Cancelled before the request got registered, an aborted request fails as soon as it is executed
+        if (indicator.isCanceled()) request.abort();
+    }
+
+    private static void unregister(ProgressIndicator indicator, HttpRequestBase request) {
+        synchronized (inProgress) {
+            Set<HttpRequestBase> requests = inProgress.get(indicator);
+            if (requests != null && requests.remove(request) && requests.isEmpty()) inProgress.remove(indicator);
+        }
+    }
+
+    /**
+     * Aborts every request sent under the given progress indicator, closing their connections.
+     */
+    public static void abortRequests(ProgressIndicator indicator) {
+        List<HttpRequestBase> requests;
+        synchronized (inProgress) {
+            Set<HttpRequestBase> registered = inProgress.remove(indicator);
+            if (registered == null) return;
+            requests = new ArrayList<>(registered);
+        }
+        for (HttpRequestBase request : requests) {
+            request.abort();
+        }
+    }
+
+    private <T> ResponseHandler<T> cachingHandler(HttpRequestBase request, final ResponseHandler<? extends T> handler) {
+        final String key = cacheUser + " " + request.getURI();
+        final HttpResponseCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            if (cached.etag != null) request.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+            if (cached.lastModified != null) request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+        }
+
+        return new ResponseHandler<T>() {
+            @Override
+            public T handleResponse(HttpResponse response) throws IOException {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                    cache.hit();
+                    EntityUtils.consume(response.getEntity());
+                    ByteArrayEntity entity = new ByteArrayEntity(cached.body);
+                    entity.setContentType(cached.contentType);
+                    response.setStatusCode(HttpStatus.SC_OK);
+                    response.setEntity(entity);
+                    return handler.handleResponse(response);
+                }
+
+                cache.miss();
+                Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+                Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+                HttpEntity entity = response.getEntity();
+                cache.remove(key);
+                if (statusCode != HttpStatus.SC_OK || (etag == null && lastModified == null) || entity == null
+                        || entity.getContentLength() > HttpResponseCache.MAX_ENTRY_SIZE) {
+                    return handler.handleResponse(response);
+                }
+
+                // The body is copied into the cache while the handler streams it
+                CopyingEntity cachingEntity = new CopyingEntity(entity, HttpResponseCache.MAX_ENTRY_SIZE);
+                response.setEntity(cachingEntity);
+                T result = handler.handleResponse(response);
+                byte[] body = cachingEntity.body();
+                if (body != null) {
+                    String contentType = entity.getContentType() != null ? entity.getContentType().getValue() : null;
+                    cache.put(key, new HttpResponseCache.Entry(etag != null ? etag.getValue() : null,
+                            lastModified != null ? lastModified.getValue() : null, contentType, body));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Keeps a copy of the body read through it, up to a limit.
+     */
+    private static class CopyingEntity extends HttpEntityWrapper {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private final long limit;
+        private InputStream content;
+        private boolean overflow;
+        private boolean complete;
+
+        CopyingEntity(HttpEntity entity, long limit) {
+            super(entity);
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized InputStream getContent() throws IOException {
+            if (content == null) {
+                content = new FilterInputStream(wrappedEntity.getContent()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b == -1) complete = true;
+                        else copy(new byte[]{(byte) b}, 0, 1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int count = super.read(b, off, len);
+                        if (count == -1) complete = true;
+                        else copy(b, off, count);
+                        return count;
+                    }
+                };
+            }
+            return content;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (overflow) return;
+            if (copy.size() + len > limit) {
+                overflow = true;
+                copy.reset();
+            } else {
+                copy.write(b, off, len);
+            }
+        }
+
+        /**
+         * The whole body, reading what the handler left unread, or null when it is larger than the limit.
+         */
+        synchronized byte[] body() {
+            try {
+                InputStream in = getContent();
+                byte[] buffer = new byte[8192];
+                while (!overflow && !complete) {
+                    in.read(buffer);
+                }
+            } catch (IOException e) {
+                // closed by the handler before the end, nothing to cache
+                return null;
+            }
+            return overflow ? null : copy.toByteArray();
         }
     }
 
     public HttpRequestBase request() throws Exception {
-        return getHttpRequest();
+        return getHttpRequest(null);
     }
 
     private HttpRequestBuilder() {
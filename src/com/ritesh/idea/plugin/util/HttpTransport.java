@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * Sends requests built by {@link HttpRequestBuilder}. The handler is called while the response body is still open,
+ * implementations release the connection once it returns.
+ */
+public interface HttpTransport extends Closeable {
+    String HTTP_1_1 = "HTTP/1.1";
+    String HTTP_2 = "HTTP/2";
+
+    <T> T execute(HttpRequestBase request, ResponseHandler<? extends T> handler) throws IOException;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import org.apache.http.Consts;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Shared json decoder. Gson instances are thread safe and cache their type adapters, so a single instance is
+ * reused for every response and the adapters of known models are resolved once up front.
+ */
+public final class Json {
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private Json() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Resolves the streaming type adapters of given classes so that the first response does not pay for reflection.
+     */
+    public static void register(Class<?>... types) {
+        for (Class<?> type : types) {
+            GSON.getAdapter(type);
+        }
+    }
+
+    /**
+     * Decodes the entity while it is read from the wire, without buffering the body into a string first.
+     *
+     * @return decoded object or null if the entity was empty
+     */
+    public static <T> T fromEntity(HttpEntity entity, Class<T> clazz) throws IOException {
+        if (entity == null) return null;
+        ContentType contentType = ContentType.get(entity);
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : Consts.UTF_8;
+        try (Reader reader = new InputStreamReader(entity.getContent(), charset)) {
+            return GSON.fromJson(reader, clazz);
+        }
+    }
+}
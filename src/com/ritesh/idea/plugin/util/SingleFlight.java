@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller does the work and all callers arriving while it is
+ * in flight share its result (or exception). Nothing is cached once the call completes.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    public V execute(K key, Callable<V> callable) throws Exception {
+        calls.incrementAndGet();
+        FutureTask<V> task = new FutureTask<>(callable);
+        FutureTask<V> existing;
+        while ((existing = inFlight.putIfAbsent(key, task)) != null && existing.isDone()) {
+            // Completed but not removed yet, its result is not shared with late callers
+            inFlight.remove(key, existing);
+        }
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            return get(existing);
+        }
+        try {
+            task.run();
+            return get(task);
+        } finally {
+            inFlight.remove(key, task);
+        }
+    }
+
+    private V get(FutureTask<V> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of calls which were served by an already running call
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bytes received per endpoint, as sent on the wire and after decompression. Ids in paths are folded so that all
+ * requests for the same kind of resource share a counter.
+ */
+public class TransferStatistics {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public static class Counter {
+        private final AtomicLong responses = new AtomicLong();
+        private final AtomicLong wireBytes = new AtomicLong();
+        private final AtomicLong decodedBytes = new AtomicLong();
+
+        public long getResponses() {
+            return responses.get();
+        }
+
+        public long getWireBytes() {
+            return wireBytes.get();
+        }
+
+        public long getDecodedBytes() {
+            return decodedBytes.get();
+        }
+
+        @Override
+        public String toString() {
+            long wire = wireBytes.get();
+            long decoded = decodedBytes.get();
+            return "responses=" + responses.get() + ", wire=" + wire + ", decoded=" + decoded
+                    + (wire > 0 ? String.format(", ratio=%.1f", (double) decoded / wire) : "");
+        }
+    }
+
+    public static String endpoint(String method, URI uri) {
+        return method + " " + ID_SEGMENT.matcher(uri.getPath()).replaceAll("/{id}");
+    }
+
+    public void record(String endpoint, long wireBytes, long decodedBytes) {
+        Counter counter = counters.get(endpoint);
+        if (counter == null) {
+            Counter existing = counters.putIfAbsent(endpoint, counter = new Counter());
+            if (existing != null) counter = existing;
+        }
+        counter.responses.incrementAndGet();
+        counter.wireBytes.addAndGet(wireBytes);
+        counter.decodedBytes.addAndGet(decodedBytes);
+    }
+
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TransferStatistics{");
+        for (Map.Entry<String, Counter> entry : getCounters().entrySet()) {
+            builder.append("\n  ").append(entry.getKey()).append(" : ").append(entry.getValue());
+        }
+        return builder.append('}').toString();
+    }
+}
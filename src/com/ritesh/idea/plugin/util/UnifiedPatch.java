@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 The review-board-idea-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ritesh.idea.plugin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strict applier of a single file unified diff. Every context and removed line has to match the original exactly,
+ * any mismatch fails the whole patch instead of guessing.
+ */
+public class UnifiedPatch {
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*");
+    private static final String NO_NEWLINE_MARKER = "\\";
+
+    private UnifiedPatch() {
+    }
+
+    /**
+     * @return patched text or null if the patch has no hunks or does not apply cleanly
+     */
+    public static String apply(String original, String patch) {
+        List<String> source = lines(original);
+        List<String> patchLines = lines(patch);
+        StringBuilder result = new StringBuilder(original.length() + patch.length());
+
+        int cursor = 0;
+        int hunks = 0;
+        int i = 0;
+        while (i < patchLines.size()) {
+            Matcher matcher = HUNK_HEADER.matcher(stripNewline(patchLines.get(i)));
+            if (!matcher.matches()) {
+                // Anything after the first hunk other than another hunk means more than one file
+                if (hunks > 0) return null;
+                i++;
+                continue;
+            }
+            hunks++;
+            i++;
+            int oldStart = Integer.parseInt(matcher.group(1));
+            int oldCount = matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2));
+            int newCount = matcher.group(4) == null ? 1 : Integer.parseInt(matcher.group(4));
+
+            int position = oldCount == 0 ? oldStart : oldStart - 1;
+            if (position < cursor || position > source.size()) return null;
+            while (cursor < position) result.append(source.get(cursor++));
+
+            while (oldCount > 0 || newCount > 0) {
+                if (i >= patchLines.size()) return null;
+                String line = patchLines.get(i++);
+                // Some tools strip the leading space of empty context lines
+                boolean bare = stripNewline(line).isEmpty();
+                String text = bare ? line : line.substring(1);
+                if (i < patchLines.size() && patchLines.get(i).startsWith(NO_NEWLINE_MARKER)) {
+                    text = stripNewline(text);
+                    i++;
+                }
+                char type = bare ? ' ' : line.charAt(0);
+                if (type == ' ' || type == '-') {
+                    if (cursor >= source.size() || !source.get(cursor).equals(text)) return null;
+                    cursor++;
+                    oldCount--;
+                    if (type == ' ') {
+                        result.append(text);
+                        newCount--;
+                    }
+                } else if (type == '+') {
+                    result.append(text);
+                    newCount--;
+                } else {
+                    return null;
+                }
+                if (oldCount < 0 || newCount < 0) return null;
+            }
+        }
+        if (hunks == 0) return null;
+        while (cursor < source.size()) result.append(source.get(cursor++));
+        return result.toString();
+    }
+
+    /**
+     * Splits text in lines, each line keeps its terminating new line if it has one.
+     */
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                lines.add(text.substring(start));
+                break;
+            }
+            lines.add(text.substring(start, end + 1));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    private static String stripNewline(String line) {
+        return line.endsWith("\n") ? line.substring(0, line.length() - 1) : line;
+    }
+}